@@ -22,6 +22,7 @@ import org.eclipse.lsp4e.test.completion.IncompleteCompletionTest;
 import org.eclipse.lsp4e.test.completion.VariableReplacementTest;
 import org.eclipse.lsp4e.test.debug.DebugTest;
 import org.eclipse.lsp4e.test.definition.DefinitionTest;
+import org.eclipse.lsp4e.test.diagnostics.DiagnosticsAggregatorTest;
 import org.eclipse.lsp4e.test.diagnostics.DiagnosticsTest;
 import org.eclipse.lsp4e.test.documentLink.DocumentLinkTest;
 import org.eclipse.lsp4e.test.edit.DocumentDidChangeTest;
@@ -60,6 +61,10 @@ import org.junit.runners.Suite.SuiteClasses;
 	ContextInformationTest.class,
 	DocumentDidOpenTest.class,
 	DocumentDidChangeTest.class,
+	DocumentResponseCacheTest.class,
+	CancellationSupportTest.class,
+	LineOffsetTableTest.class,
+	SerialExecutorTest.class,
 	DocumentDidSaveTest.class,
 	DocumentWillSaveWaitUntilTest.class,
 	DocumentDidCloseTest.class,
@@ -70,6 +75,7 @@ import org.junit.runners.Suite.SuiteClasses;
 	HoverTest.class,
 	DefinitionTest.class,
 	DiagnosticsTest.class,
+	DiagnosticsAggregatorTest.class,
 	FindReferencesTest.class,
 	FormatTest.class,
 	CodeActionTests.class,
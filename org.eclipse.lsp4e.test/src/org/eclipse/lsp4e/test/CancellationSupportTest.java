@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e.test;
+
+import static org.eclipse.lsp4e.test.TestUtils.waitForAndAssertCondition;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.lsp4e.CancellationSupport;
+import org.junit.Test;
+
+public class CancellationSupportTest {
+
+	@Test
+	public void testCancelDerivedFutureCancelsRequest() {
+		long cancelledBefore = CancellationSupport.getCancelledRequestCount();
+		CancellationSupport cancellationSupport = new CancellationSupport();
+		CompletableFuture<String> request = new CompletableFuture<>();
+		CompletableFuture<Integer> derived = cancellationSupport
+				.bind(CompletableFuture.completedFuture(null).thenCompose(v -> cancellationSupport.execute(request))
+						.thenApplyAsync(String::length));
+		derived.cancel(true);
+		assertTrue(request.isCancelled());
+		assertEquals(cancelledBefore + 1, CancellationSupport.getCancelledRequestCount());
+	}
+
+	@Test
+	public void testCancelMonitorCancelsRequest() throws Exception {
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		CancellationSupport cancellationSupport = new CancellationSupport(monitor);
+		CompletableFuture<String> request = cancellationSupport.execute(new CompletableFuture<>());
+		assertFalse(request.isCancelled());
+		monitor.setCanceled(true);
+		waitForAndAssertCondition(2_000, request::isCancelled);
+	}
+
+	@Test
+	public void testRequestSentAfterCancellationIsCancelled() {
+		CancellationSupport cancellationSupport = new CancellationSupport();
+		cancellationSupport.cancel();
+		CompletableFuture<String> request = cancellationSupport.execute(new CompletableFuture<>());
+		assertTrue(request.isCancelled());
+	}
+
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.lsp4e.DocumentResponseCache;
+import org.eclipse.lsp4e.LSPEclipseUtils;
+import org.eclipse.lsp4e.LanguageServiceAccessor;
+import org.eclipse.lsp4j.services.LanguageServer;
+import org.eclipse.ui.IEditorPart;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class DocumentResponseCacheTest {
+
+	@Rule public AllCleanRule clear = new AllCleanRule();
+	private IProject project;
+
+	@Before
+	public void setUp() throws CoreException {
+		project = TestUtils.createProject("DocumentResponseCacheTest" + System.currentTimeMillis());
+	}
+
+	@Test
+	public void testResponseSharedUntilDocumentChanges() throws Exception {
+		IFile testFile = TestUtils.createUniqueTestFile(project, "content");
+		IEditorPart editor = TestUtils.openEditor(testFile);
+		IDocument document = LSPEclipseUtils.getDocument(editor.getEditorInput());
+		URI uri = LSPEclipseUtils.toUri(testFile);
+		List<LanguageServer> servers = LanguageServiceAccessor.getLanguageServers(document, null).get(5,
+				TimeUnit.SECONDS);
+		assertEquals(1, servers.size());
+		LanguageServer server = servers.get(0);
+
+		AtomicInteger requests = new AtomicInteger();
+		Object response = new Object();
+		String params = "params";
+		Object first = DocumentResponseCache.getOrRequest(server, uri, DocumentResponseCache.DOCUMENT_SYMBOL, params,
+				ls -> {
+					requests.incrementAndGet();
+					return CompletableFuture.completedFuture(response);
+				}).get(5, TimeUnit.SECONDS);
+		Object second = DocumentResponseCache.getOrRequest(server, uri, DocumentResponseCache.DOCUMENT_SYMBOL, params,
+				ls -> {
+					requests.incrementAndGet();
+					return CompletableFuture.completedFuture(new Object());
+				}).get(5, TimeUnit.SECONDS);
+		assertEquals(1, requests.get());
+		assertSame(first, second);
+
+		document.replace(0, 0, "new ");
+		Object third = DocumentResponseCache.getOrRequest(server, uri, DocumentResponseCache.DOCUMENT_SYMBOL, params,
+				ls -> {
+					requests.incrementAndGet();
+					return CompletableFuture.completedFuture(new Object());
+				}).get(5, TimeUnit.SECONDS);
+		assertEquals(2, requests.get());
+		assertNotSame(first, third);
+	}
+
+}
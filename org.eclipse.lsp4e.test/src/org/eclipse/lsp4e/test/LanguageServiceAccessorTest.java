@@ -39,6 +39,7 @@ import static org.junit.Assert.assertTrue;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
@@ -373,6 +374,42 @@ public class LanguageServiceAccessorTest {
 				.findAny().isPresent());
 	}
 
+	@Test
+	public void testDocumentWrappersInvalidatedOnPreferenceChange() throws Exception {
+		final var prefKey = ContentTypeToLanguageServerDefinitionTest.DISABLED_SERVER_PREF;
+		final var store = LanguageServerPlugin.getDefault().getPreferenceStore();
+		store.setValue(prefKey, Boolean.FALSE.toString());
+		try {
+			var document = getDocument(createUniqueTestFile(project, "lspt-disabled", ""));
+			assertNotNull(document);
+			assertTrue(getLSPDocumentInfosFor(document, MATCH_ALL).isEmpty());
+
+			// the empty lookup must not be served from the cache anymore
+			store.setValue(prefKey, Boolean.TRUE.toString());
+			assertFalse(getLSPDocumentInfosFor(document, MATCH_ALL).isEmpty());
+		} finally {
+			store.setValue(prefKey, Boolean.TRUE.toString());
+		}
+	}
+
+	@Test
+	public void testDocumentWrappersInvalidatedOnMappingChange() throws Exception {
+		final var registry = LanguageServersRegistry.getInstance();
+		final var launchMappings = registry.getContentTypeToLSPLaunches();
+		registry.setAssociations(List.of());
+		try {
+			var document = getDocument(createFile(project, "shouldUseRunConfiguration.lspt2", ""));
+			assertNotNull(document);
+			assertTrue(getLSPDocumentInfosFor(document, MATCH_ALL).isEmpty());
+
+			// the empty lookup must not be served from the cache anymore
+			registry.setAssociations(launchMappings);
+			assertFalse(getLSPDocumentInfosFor(document, MATCH_ALL).isEmpty());
+		} finally {
+			registry.setAssociations(launchMappings);
+		}
+	}
+
 	@Test
 	public void testLanguageServerEnablementTester() throws Exception {
 		final var serverId = ContentTypeToLanguageServerDefinitionTest.SERVER_TO_DISABLE;
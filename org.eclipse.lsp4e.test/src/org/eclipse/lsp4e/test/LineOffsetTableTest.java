@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.lsp4e.LSPEclipseUtils;
+import org.eclipse.lsp4e.LineOffsetTable;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class LineOffsetTableTest {
+
+	@Rule public AllCleanRule clear = new AllCleanRule();
+
+	private static final String[] TEXTS = { "", "a", "a\n", "a\nb", "a\r\nb\r\n", "a\rb\r\rc", "\n\n\r\n",
+			"héllo\n😀 wörld\r\n世界" };
+
+	@Test
+	public void testSameLinesAsDocument() throws BadLocationException {
+		for (String text : TEXTS) {
+			IDocument document = new Document(text);
+			assertSameLines(document, LineOffsetTable.of(document));
+			assertSameLines(document, LineOffsetTable.of(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+			assertSameLines(document,
+					LineOffsetTable.of(text.getBytes(StandardCharsets.UTF_16LE), StandardCharsets.UTF_16LE));
+		}
+	}
+
+	@Test
+	public void testByteOrderMarkIgnored() throws BadLocationException {
+		String text = "a\nb";
+		byte[] content = ("\uFEFF" + text).getBytes(StandardCharsets.UTF_8);
+		assertSameLines(new Document(text), LineOffsetTable.of(content, Charset.forName("UTF-8")));
+	}
+
+	@Test
+	public void testSnapshotSharedUntilDocumentChanges() throws BadLocationException {
+		IDocument document = new Document("a\nb");
+		LineOffsetTable table = LineOffsetTable.of(document);
+		assertSame(table, LineOffsetTable.of(document));
+		document.replace(0, 0, "\n");
+		LineOffsetTable newTable = LineOffsetTable.of(document);
+		assertEquals(3, newTable.getNumberOfLines());
+		assertEquals(2, table.getNumberOfLines());
+	}
+
+	@Test
+	public void testFileTableUpdatedWithFile() throws Exception {
+		IProject project = TestUtils.createProject("LineOffsetTableTest" + System.currentTimeMillis());
+		IFile file = TestUtils.createUniqueTestFile(project, "a\nb");
+		LineOffsetTable table = LineOffsetTable.of(file);
+		assertSameLines(new Document("a\nb"), table);
+		assertSame(table, LineOffsetTable.of(file));
+		file.setContents(new ByteArrayInputStream("a\r\nb\nc".getBytes(file.getCharset())), true, false, null);
+		assertSameLines(new Document("a\r\nb\nc"), LineOffsetTable.of(file));
+	}
+
+	@Test
+	public void testFileReadInChunks() throws Exception {
+		IProject project = TestUtils.createProject("LineOffsetTableTest" + System.currentTimeMillis());
+		// delimiters and multi-byte chars straddle the boundaries of the read chunks
+		String text = "é\r\n😀\r".repeat(10_000);
+		IFile file = TestUtils.createUniqueTestFile(project, "");
+		file.setContents(new ByteArrayInputStream(text.getBytes(file.getCharset())), true, false, null);
+		assertSameLines(new Document(text), LineOffsetTable.of(file));
+		file.setCharset(StandardCharsets.UTF_16LE.name(), null);
+		file.setContents(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_16LE)), true, false, null);
+		assertSameLines(new Document(text), LineOffsetTable.of(file));
+	}
+
+	@Test
+	public void testBulkConversion() {
+		IDocument document = new Document("abc\ndef\n");
+		List<Range> ranges = List.of(new Range(new Position(0, 1), new Position(1, 2)),
+				new Range(new Position(1, 0), new Position(2, 0)), new Range(new Position(5, 0), new Position(5, 1)));
+		int[] offsets = new int[2 * ranges.size()];
+		int converted = LineOffsetTable.of(document).toOffsets(ranges, range -> range, offsets);
+		assertEquals(2, converted);
+		assertArrayEquals(new int[] { 1, 6, 4, 8, -1, -1 }, offsets);
+	}
+
+	private static void assertSameLines(IDocument document, LineOffsetTable table) throws BadLocationException {
+		assertEquals(document.getLength(), table.getLength());
+		assertEquals(document.getNumberOfLines(), table.getNumberOfLines());
+		for (int line = 0; line < document.getNumberOfLines(); line++) {
+			assertEquals(document.getLineOffset(line), table.getLineOffset(line));
+		}
+		for (int offset = 0; offset <= document.getLength(); offset++) {
+			assertEquals(document.getLineOfOffset(offset), table.getLineOfOffset(offset));
+			assertEquals(LSPEclipseUtils.toPosition(offset, document), table.toPosition(offset));
+		}
+	}
+
+}
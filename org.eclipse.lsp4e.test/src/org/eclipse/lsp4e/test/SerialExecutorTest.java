@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.lsp4e.SerialExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SerialExecutorTest {
+
+	private static final int TASKS = 500;
+
+	private ThreadPoolExecutor pool;
+
+	@Before
+	public void setUp() {
+		// a tiny queue makes the pool overflow to the common pool, as the dispatcher of a language server
+		pool = new ThreadPoolExecutor(4, 4, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(2), (task, executor) -> {
+			if (executor.isShutdown()) {
+				throw new RejectedExecutionException();
+			}
+			ForkJoinPool.commonPool().execute(task);
+		});
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	public void testLaneRunsTasksInSubmissionOrder() throws InterruptedException {
+		List<SerialExecutor> lanes = new ArrayList<>();
+		List<List<Integer>> results = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			lanes.add(new SerialExecutor(pool));
+			results.add(Collections.synchronizedList(new ArrayList<>()));
+		}
+		CountDownLatch done = new CountDownLatch(lanes.size() * TASKS);
+		for (int i = 0; i < TASKS; i++) {
+			for (int lane = 0; lane < lanes.size(); lane++) {
+				final int value = i;
+				final List<Integer> result = results.get(lane);
+				lanes.get(lane).execute(() -> {
+					result.add(value);
+					done.countDown();
+				});
+			}
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		for (List<Integer> result : results) {
+			assertEquals(TASKS, result.size());
+			for (int i = 0; i < TASKS; i++) {
+				assertEquals(Integer.valueOf(i), result.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testLaneRunsOneTaskAtATime() throws InterruptedException {
+		SerialExecutor lane = new SerialExecutor(pool);
+		int[] running = new int[1];
+		List<Integer> overlaps = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(TASKS);
+		for (int i = 0; i < TASKS; i++) {
+			lane.execute(() -> {
+				synchronized (running) {
+					if (++running[0] > 1) {
+						overlaps.add(running[0]);
+					}
+				}
+				Thread.yield();
+				synchronized (running) {
+					running[0]--;
+				}
+				done.countDown();
+			});
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertTrue(overlaps.isEmpty());
+		assertEquals(0, lane.getPendingTaskCount());
+	}
+
+	@Test
+	public void testLaneCompletesAcceptedTasksAfterPoolShutdown() throws InterruptedException {
+		SerialExecutor lane = new SerialExecutor(pool);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(2);
+		lane.execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			done.countDown();
+		});
+		lane.execute(done::countDown);
+		pool.shutdown();
+		release.countDown();
+		assertTrue(done.await(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testLaneRejectsTasksAfterPoolShutdown() throws InterruptedException {
+		SerialExecutor lane = new SerialExecutor(pool);
+		pool.shutdown();
+		assertThrows(RejectedExecutionException.class, () -> lane.execute(() -> {
+		}));
+		// the lane isn't left busy by the rejected task
+		assertThrows(RejectedExecutionException.class, () -> lane.execute(() -> {
+		}));
+		assertEquals(0, lane.getPendingTaskCount());
+	}
+}
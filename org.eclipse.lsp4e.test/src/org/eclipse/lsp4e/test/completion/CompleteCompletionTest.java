@@ -46,11 +46,14 @@ import org.eclipse.lsp4j.Command;
 import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.lsp4j.CompletionItemKind;
 import org.eclipse.lsp4j.CompletionList;
+import org.eclipse.lsp4j.CompletionOptions;
 import org.eclipse.lsp4j.ExecuteCommandParams;
 import org.eclipse.lsp4j.InsertTextFormat;
 import org.eclipse.lsp4j.InsertTextMode;
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.Registration;
+import org.eclipse.lsp4j.RegistrationParams;
 import org.eclipse.lsp4j.TextEdit;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.eclipse.swt.SWT;
@@ -63,6 +66,7 @@ import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.ui.PartInitException;
 import org.junit.Test;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonPrimitive;
 
 public class CompleteCompletionTest extends AbstractCompletionTest {
@@ -215,6 +219,21 @@ public class CompleteCompletionTest extends AbstractCompletionTest {
 		));
 	}
 
+	@Test
+	public void testTriggerCharsAfterDynamicRegistration() throws Exception {
+		MockLanguageServer.INSTANCE.setCompletionTriggerChars(Set.of("a"));
+		TestUtils.openTextViewer(TestUtils.createUniqueTestFile(project, "First"));
+		waitForAndAssertCondition(3_000, () -> Arrays.equals(new char[] { 'a' },
+				contentAssistProcessor.getCompletionProposalAutoActivationCharacters()));
+
+		Registration registration = new Registration("completion", "textDocument/completion",
+				new Gson().toJsonTree(new CompletionOptions(false, List.of("c", "d"))));
+		MockLanguageServer.INSTANCE.getRemoteProxies().get(0)
+				.registerCapability(new RegistrationParams(List.of(registration))).get(1, TimeUnit.SECONDS);
+		waitForAndAssertCondition(3_000, () -> Arrays.equals(new char[] { 'c', 'd' },
+				contentAssistProcessor.getCompletionProposalAutoActivationCharacters()));
+	}
+
 	@Test
 	public void testTriggerCharsNullList() throws CoreException {
 		MockLanguageServer.INSTANCE.setCompletionTriggerChars(null);
@@ -497,6 +516,62 @@ public class CompleteCompletionTest extends AbstractCompletionTest {
 		assertFalse(completionProposal.isValidFor(document, 7));
 	}
 
+	@Test
+	public void testResolvePrefetch() throws Exception {
+		MockLanguageServer.INSTANCE.getInitializeResult().getCapabilities().getCompletionProvider()
+				.setResolveProvider(Boolean.TRUE);
+		Range range = new Range(new Position(0, 0), new Position(0, 0));
+		List<CompletionItem> items = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			CompletionItem item = createCompletionItem("Item" + i, CompletionItemKind.Class, range);
+			item.setSortText(String.format("%02d", i));
+			item.setData(new JsonPrimitive(i));
+			items.add(item);
+		}
+		MockLanguageServer.INSTANCE.setCompletionList(new CompletionList(false, items));
+		ITextViewer viewer = TestUtils.openTextViewer(TestUtils.createUniqueTestFile(project, ""));
+
+		// the top of the list is resolved before being selected
+		ICompletionProposal[] proposals = contentAssistProcessor.computeCompletionProposals(viewer, 0);
+		assertEquals(20, proposals.length);
+		waitForAndAssertCondition(3_000, () -> MockLanguageServer.INSTANCE.getResolvedCompletionItems().size() == 10);
+		assertTrue(((LSCompletionProposal) proposals[0]).getAdditionalProposalInfo().contains("Documentation of Item0"));
+		assertEquals(10, MockLanguageServer.INSTANCE.getResolvedCompletionItems().size());
+
+		// resolved items are reused when the list is computed again on the same document
+		proposals = contentAssistProcessor.computeCompletionProposals(viewer, 0);
+		assertTrue(((LSCompletionProposal) proposals[1]).getAdditionalProposalInfo().contains("Documentation of Item1"));
+		assertEquals(10, MockLanguageServer.INSTANCE.getResolvedCompletionItems().size());
+
+		// the neighbours of the selection are resolved too
+		assertTrue(((LSCompletionProposal) proposals[12]).getAdditionalProposalInfo().contains("Documentation of Item12"));
+		waitForAndAssertCondition(3_000, () -> MockLanguageServer.INSTANCE.getResolvedCompletionItems().size() == 16);
+	}
+
+	@Test
+	public void testFilteringCompleteList() throws Exception {
+		Range range = new Range(new Position(0, 0), new Position(0, 0));
+		List<CompletionItem> items = new ArrayList<>();
+		items.add(createCompletionItem("FirstClass", CompletionItemKind.Class, range));
+		items.add(createCompletionItem("FooBar", CompletionItemKind.Class, range));
+		items.add(createCompletionItem("Other", CompletionItemKind.Class, range));
+		MockLanguageServer.INSTANCE.setCompletionList(new CompletionList(false, items));
+		ITextViewer viewer = TestUtils.openTextViewer(TestUtils.createUniqueTestFile(project, ""));
+		assertEquals(3, contentAssistProcessor.computeCompletionProposals(viewer, 0).length);
+
+		// typing the same word narrows the complete list without asking the server again
+		MockLanguageServer.INSTANCE.setCompletionList(new CompletionList(false, Collections.emptyList()));
+		viewer.getDocument().replace(0, 0, "F");
+		assertEquals(2, contentAssistProcessor.computeCompletionProposals(viewer, 1).length);
+		viewer.getDocument().replace(1, 0, "o");
+		ICompletionProposal[] proposals = contentAssistProcessor.computeCompletionProposals(viewer, 2);
+		assertEquals(1, proposals.length);
+		assertEquals("FooBar", proposals[0].getDisplayString());
+
+		// invoking content assist again without typing asks the server
+		assertEquals(0, contentAssistProcessor.computeCompletionProposals(viewer, 2).length);
+	}
+
 	@Test
 	public void testAdjustIndentation() throws Exception {
 		ITextViewer viewer = TestUtils.openTextViewer(TestUtils.createUniqueTestFile(project, "a\n\tb\n\t\nc"));
@@ -19,8 +19,10 @@ import java.util.List;
 
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.lsp4e.LanguageServiceAccessor;
 import org.eclipse.lsp4e.LanguageServiceAccessor.LSPDocumentInfo;
+import org.eclipse.lsp4e.operations.completion.CompletionProposalTools;
 import org.eclipse.lsp4e.operations.completion.LSCompletionProposal;
 import org.eclipse.lsp4e.test.TestUtils;
 import org.eclipse.lsp4e.tests.mock.MockLanguageServer;
@@ -193,6 +195,42 @@ public class CompletionOrderingTests extends AbstractCompletionTest {
 		assertEquals(3, completionProposal.getRankCategory());
 	}
 
+	@Test
+	public void testScoreOfFilterMatch() {
+		assertEquals(5, CompletionProposalTools.getScoreOfFilterMatch("abc", "xaxxbc"));
+		assertEquals(6, CompletionProposalTools.getScoreOfFilterMatch("abc", "axbxc"));
+		assertEquals(6, CompletionProposalTools.getScoreOfFilterMatch("ABC", "aXbXc"));
+		assertEquals(5, CompletionProposalTools.getScoreOfFilterMatch("pnd", "append"));
+		assertEquals(-1, CompletionProposalTools.getScoreOfFilterMatch("abd", "abc"));
+		assertEquals(0, CompletionProposalTools.getScoreOfFilterMatch("", "abc"));
+		// a later full match wins over a sparse earlier one
+		assertEquals(6, CompletionProposalTools.getScoreOfFilterMatch("ab", "a_b___ab"));
+		assertEquals(1, CompletionProposalTools.getCategoryOfFilterMatch("test", "test"));
+		assertEquals(4, CompletionProposalTools.getCategoryOfFilterMatch("pnd", "append"));
+		assertEquals(5, CompletionProposalTools.getCategoryOfFilterMatch("xyz", "append"));
+	}
+
+	@Test
+	public void testOrderOfLargeList() throws Exception {
+		final int size = 2000;
+		Range range = new Range(new Position(0, 0), new Position(0, 4));
+		List<CompletionItem> items = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			CompletionItem item = createCompletionItem("item" + i, CompletionItemKind.Class, range);
+			item.setSortText(String.format("%04d", size - i));
+			items.add(item);
+		}
+		MockLanguageServer.INSTANCE.setCompletionList(new CompletionList(false, items));
+		ITextViewer viewer = TestUtils.openTextViewer(TestUtils.createUniqueTestFile(project, "item"));
+
+		ICompletionProposal[] proposals = contentAssistProcessor.computeCompletionProposals(viewer, 4);
+		assertEquals(size, proposals.length);
+		// the first rows are fully sorted
+		for (int i = 0; i < 100; i++) {
+			assertEquals("item" + (size - 1 - i), proposals[i].getDisplayString());
+		}
+	}
+
 	@Test
 	public void testPerformance() throws Exception {
 		final int[] batchSizes = new int[] { 10, 100, 1000, 10000 };
@@ -11,8 +11,10 @@
  *******************************************************************************/
 package org.eclipse.lsp4e.test.completion;
 
+import static org.eclipse.lsp4e.test.TestUtils.waitForAndAssertCondition;
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -75,6 +77,58 @@ public class ContextInformationTest {
 		assertEquals(expected, infos[0].getInformationDisplayString());
 	}
 
+	@Test
+	public void testContextInformationCachedInCall() throws Exception {
+		SignatureHelp signatureHelp = new SignatureHelp();
+		SignatureInformation information = new SignatureInformation("method(a, b)", "documentation", Collections.emptyList());
+		signatureHelp.setSignatures(Collections.singletonList(information));
+		MockLanguageServer.INSTANCE.setSignatureHelp(signatureHelp);
+
+		IFile testFile = TestUtils.createUniqueTestFile(project, "method(a)");
+		ITextViewer viewer = TestUtils.openTextViewer(testFile);
+
+		IContextInformation[] infos = contentAssistProcessor.computeContextInformation(viewer, 8);
+		assertEquals(1, infos.length);
+		assertEquals(1, MockLanguageServer.INSTANCE.getSignatureHelpRequests().size());
+
+		// typing arguments of the same call is answered from the cache
+		viewer.getDocument().replace(8, 0, ", b");
+		infos = contentAssistProcessor.computeContextInformation(viewer, 11);
+		assertEquals(1, infos.length);
+		assertEquals(1, MockLanguageServer.INSTANCE.getSignatureHelpRequests().size());
+
+		// leaving the call asks the server again
+		contentAssistProcessor.computeContextInformation(viewer, 0);
+		assertEquals(2, MockLanguageServer.INSTANCE.getSignatureHelpRequests().size());
+
+		// another call opened at the same offset isn't answered from the cache
+		viewer.getDocument().replace(0, 6, "other_");
+		contentAssistProcessor.computeContextInformation(viewer, 8);
+		assertEquals(3, MockLanguageServer.INSTANCE.getSignatureHelpRequests().size());
+
+		// even when replaced while context information isn't computed
+		viewer.getDocument().replace(0, 6, "third_");
+		contentAssistProcessor.computeContextInformation(viewer, 8);
+		assertEquals(4, MockLanguageServer.INSTANCE.getSignatureHelpRequests().size());
+	}
+
+	@Test
+	public void testContextInformationCallWithStringArgument() throws Exception {
+		SignatureHelp signatureHelp = new SignatureHelp();
+		SignatureInformation information = new SignatureInformation("method(a, b)", "documentation", Collections.emptyList());
+		signatureHelp.setSignatures(Collections.singletonList(information));
+		MockLanguageServer.INSTANCE.setSignatureHelp(signatureHelp);
+
+		IFile testFile = TestUtils.createUniqueTestFile(project, "method(\")\", b)");
+		ITextViewer viewer = TestUtils.openTextViewer(testFile);
+
+		contentAssistProcessor.computeContextInformation(viewer, 11);
+		assertEquals(1, MockLanguageServer.INSTANCE.getSignatureHelpRequests().size());
+		// the parenthesis in the string doesn't close the call
+		contentAssistProcessor.computeContextInformation(viewer, 13);
+		assertEquals(1, MockLanguageServer.INSTANCE.getSignatureHelpRequests().size());
+	}
+
 	@Test
 	public void testTriggerChars() throws CoreException {
 		Set<String> triggers = new HashSet<>();
@@ -85,8 +139,9 @@ public class ContextInformationTest {
 		String content = "First";
 		TestUtils.openTextViewer(TestUtils.createUniqueTestFile(project, content));
 
-		assertArrayEquals(new char[] { 'a', 'b' },
-				contentAssistProcessor.getContextInformationAutoActivationCharacters());
+		// trigger characters are computed in background
+		waitForAndAssertCondition(3_000, () -> Arrays.equals(new char[] { 'a', 'b' },
+				contentAssistProcessor.getContextInformationAutoActivationCharacters()));
 	}
 
 	@Test
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e.test.diagnostics;
+
+import static org.eclipse.lsp4e.test.TestUtils.waitForAndAssertCondition;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.lsp4e.DiagnosticsAggregator;
+import org.eclipse.lsp4e.LSPEclipseUtils;
+import org.eclipse.lsp4e.LanguageServerPlugin;
+import org.eclipse.lsp4e.LanguageServerWrapper;
+import org.eclipse.lsp4e.LanguageServiceAccessor;
+import org.eclipse.lsp4e.operations.diagnostics.LSPDiagnosticsToMarkers;
+import org.eclipse.lsp4e.test.AllCleanRule;
+import org.eclipse.lsp4e.test.TestUtils;
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.DiagnosticSeverity;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.ui.IEditorPart;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class DiagnosticsAggregatorTest {
+
+	private static final String BATCHING_WINDOW_KEY = "org.eclipse.lsp4e.test.server.diagnostics.batchingWindow";
+
+	@Rule public AllCleanRule clear = new AllCleanRule();
+	private IProject project;
+	private final AtomicInteger acceptedCount = new AtomicInteger();
+	private Consumer<PublishDiagnosticsParams> countingConsumer;
+
+	@Before
+	public void setUp() throws CoreException {
+		project = TestUtils.createProject("DiagnosticsAggregatorTest" + System.currentTimeMillis());
+		LSPDiagnosticsToMarkers diagnosticsToMarkers = new LSPDiagnosticsToMarkers("dummy");
+		countingConsumer = diagnostics -> {
+			acceptedCount.incrementAndGet();
+			diagnosticsToMarkers.accept(diagnostics);
+		};
+		// long enough for all the publications of a test to fall in the same batch
+		getPreferenceStore().setValue(BATCHING_WINDOW_KEY, 500);
+	}
+
+	@After
+	public void tearDown() {
+		getPreferenceStore().setToDefault(BATCHING_WINDOW_KEY);
+	}
+
+	@Test
+	public void testBurstAppliedInOneWorkspaceOperation() throws Exception {
+		IFile file1 = TestUtils.createUniqueTestFile(project, "Diagnostic Other Text");
+		IFile file2 = TestUtils.createUniqueTestFile(project, "Diagnostic Other Text");
+		LanguageServerWrapper wrapper = LanguageServiceAccessor.getLSWrappers(file1, c -> Boolean.TRUE).iterator()
+				.next();
+
+		AtomicInteger markerChanges = new AtomicInteger();
+		IResourceChangeListener listener = event -> {
+			if (event.findMarkerDeltas(LSPDiagnosticsToMarkers.LS_DIAGNOSTIC_MARKER_TYPE, true).length > 0) {
+				markerChanges.incrementAndGet();
+			}
+		};
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+		try {
+			long supersededCount = DiagnosticsAggregator.getSupersededCount();
+			for (int i = 0; i < 3; i++) {
+				DiagnosticsAggregator.INSTANCE.publish(wrapper, countingConsumer,
+						createParams(file1, "message" + i, null));
+			}
+			DiagnosticsAggregator.INSTANCE.publish(wrapper, countingConsumer, createParams(file2, "other", null));
+
+			// only the latest diagnostics of each file reach the consumer
+			waitForAndAssertCondition(5_000, () -> acceptedCount.get() == 2);
+			assertEquals(supersededCount + 2, DiagnosticsAggregator.getSupersededCount());
+			IMarker[] markers = file1.findMarkers(LSPDiagnosticsToMarkers.LS_DIAGNOSTIC_MARKER_TYPE, true,
+					IResource.DEPTH_ZERO);
+			assertEquals(1, markers.length);
+			assertEquals("message2", markers[0].getAttribute(IMarker.MESSAGE));
+			assertEquals(1, file2.findMarkers(LSPDiagnosticsToMarkers.LS_DIAGNOSTIC_MARKER_TYPE, true,
+					IResource.DEPTH_ZERO).length);
+
+			// both files are updated within the same notification
+			waitForAndAssertCondition(2_000, () -> markerChanges.get() > 0);
+			Thread.sleep(200);
+			assertEquals(1, markerChanges.get());
+		} finally {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(listener);
+		}
+	}
+
+	@Test
+	public void testOutdatedVersionDropped() throws Exception {
+		IFile file = TestUtils.createUniqueTestFile(project, "Diagnostic Other Text");
+		IEditorPart editor = TestUtils.openEditor(file);
+		IDocument document = LSPEclipseUtils.getDocument(editor.getEditorInput());
+		LanguageServiceAccessor.getLanguageServers(document, null).get(5, TimeUnit.SECONDS);
+		LanguageServerWrapper wrapper = LanguageServiceAccessor.getLSWrappers(file, c -> Boolean.TRUE).iterator()
+				.next();
+		// version 1 was opened, this makes it version 2
+		document.replace(0, 0, "a");
+
+		long droppedCount = DiagnosticsAggregator.getDroppedCount();
+		DiagnosticsAggregator.INSTANCE.publish(wrapper, countingConsumer, createParams(file, "outdated", 1));
+		assertEquals(droppedCount + 1, DiagnosticsAggregator.getDroppedCount());
+
+		DiagnosticsAggregator.INSTANCE.publish(wrapper, countingConsumer, createParams(file, "current", 2));
+		waitForAndAssertCondition(5_000, () -> acceptedCount.get() == 1);
+		IMarker[] markers = file.findMarkers(LSPDiagnosticsToMarkers.LS_DIAGNOSTIC_MARKER_TYPE, true,
+				IResource.DEPTH_ZERO);
+		assertEquals(1, markers.length);
+		assertEquals("current", markers[0].getAttribute(IMarker.MESSAGE));
+		assertEquals(droppedCount + 1, DiagnosticsAggregator.getDroppedCount());
+	}
+
+	private static PublishDiagnosticsParams createParams(IFile file, String message, Integer version) {
+		Diagnostic diagnostic = new Diagnostic(new Range(new Position(0, 0), new Position(0, 10)), message);
+		diagnostic.setSeverity(DiagnosticSeverity.Error);
+		PublishDiagnosticsParams params = new PublishDiagnosticsParams(LSPEclipseUtils.toUri(file).toString(),
+				Collections.singletonList(diagnostic));
+		params.setVersion(version);
+		return params;
+	}
+
+	private static IPreferenceStore getPreferenceStore() {
+		return LanguageServerPlugin.getDefault().getPreferenceStore();
+	}
+}
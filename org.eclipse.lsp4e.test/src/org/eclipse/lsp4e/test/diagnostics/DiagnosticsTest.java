@@ -18,10 +18,14 @@ import static org.junit.Assert.assertNull;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
 
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.resources.IFile;
@@ -36,7 +40,11 @@ import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.lsp4e.DiagnosticsPuller;
 import org.eclipse.lsp4e.LSPEclipseUtils;
+import org.eclipse.lsp4e.LanguageServerPlugin;
+import org.eclipse.lsp4e.LanguageServerWrapper;
+import org.eclipse.lsp4e.LanguageServiceAccessor;
 import org.eclipse.lsp4e.operations.diagnostics.LSPDiagnosticsToMarkers;
 import org.eclipse.lsp4e.test.AllCleanRule;
 import org.eclipse.lsp4e.test.TestUtils;
@@ -52,6 +60,7 @@ import org.eclipse.swt.custom.StyledText;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.FontData;
 import org.eclipse.swt.graphics.RGB;
+import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.ide.IDE;
 import org.eclipse.ui.texteditor.MarkerUtilities;
 import org.junit.Before;
@@ -104,6 +113,55 @@ public class DiagnosticsTest {
 		assertEquals(0, markers.length);
 	}
 
+	@Test
+	public void testMarkersReusedForSameDiagnostics() throws CoreException {
+		IFile file = TestUtils.createUniqueTestFile(project, "Diagnostic Other Text");
+
+		Range range = new Range(new Position(0, 0), new Position(0, 10));
+		List<Diagnostic> diagnostics = new ArrayList<>();
+		diagnostics.add(createDiagnostic("1", "message1", range, DiagnosticSeverity.Error, "source1"));
+		diagnostics.add(createDiagnostic("2", "message2", range, DiagnosticSeverity.Warning, "source2"));
+		diagnosticsToMarkers.accept(new PublishDiagnosticsParams(file.getLocationURI().toString(), diagnostics));
+		Set<Long> markerIds = Arrays.stream(file.findMarkers(LSPDiagnosticsToMarkers.LS_DIAGNOSTIC_MARKER_TYPE, false,
+				IResource.DEPTH_INFINITE)).map(IMarker::getId).collect(Collectors.toSet());
+		assertEquals(2, markerIds.size());
+
+		diagnostics.set(1, createDiagnostic("2", "message2", range, DiagnosticSeverity.Error, "source2"));
+		diagnosticsToMarkers.accept(new PublishDiagnosticsParams(file.getLocationURI().toString(), diagnostics));
+		IMarker[] markers = file.findMarkers(LSPDiagnosticsToMarkers.LS_DIAGNOSTIC_MARKER_TYPE, false,
+				IResource.DEPTH_INFINITE);
+		assertEquals(markerIds, Arrays.stream(markers).map(IMarker::getId).collect(Collectors.toSet()));
+		for (IMarker marker : markers) {
+			assertEquals(IMarker.SEVERITY_ERROR, MarkerUtilities.getSeverity(marker));
+		}
+	}
+
+	@Test
+	public void testCompactMarkers() throws CoreException {
+		IFile file = TestUtils.createUniqueTestFile(project, "Diagnostic Other Text");
+		LanguageServerPlugin.getDefault().getPreferenceStore().setValue("dummy.diagnostics.compactMarkers", true);
+		try {
+			Range range = new Range(new Position(0, 0), new Position(0, 10));
+			List<Diagnostic> diagnostics = new ArrayList<>();
+			diagnostics.add(createDiagnostic("1", "message1", range, DiagnosticSeverity.Error, "source1"));
+			diagnostics.add(createDiagnostic("2", "message2", range, DiagnosticSeverity.Warning, "source2"));
+			diagnosticsToMarkers.accept(new PublishDiagnosticsParams(file.getLocationURI().toString(), diagnostics));
+
+			IMarker[] markers = file.findMarkers(LSPDiagnosticsToMarkers.LS_DIAGNOSTIC_MARKER_TYPE, false,
+					IResource.DEPTH_INFINITE);
+			assertEquals(diagnostics.size(), markers.length);
+			for (IMarker marker : markers) {
+				assertNull(marker.getAttribute(LSPDiagnosticsToMarkers.LSP_DIAGNOSTIC));
+				Diagnostic diagnostic = LSPDiagnosticsToMarkers.getDiagnostic(marker);
+				assertEquals(MarkerUtilities.getMessage(marker), diagnostic.getMessage());
+				assertEquals(range, diagnostic.getRange());
+				assertEquals(diagnostic.getMessage().equals("message1") ? "source1" : "source2", diagnostic.getSource());
+			}
+		} finally {
+			LanguageServerPlugin.getDefault().getPreferenceStore().setToDefault("dummy.diagnostics.compactMarkers");
+		}
+	}
+
 	@Test
 	public void testFileBuffersNotLeaked() throws Exception {
 		IFile file = TestUtils.createUniqueTestFile(project, "Diagnostic Other Text");
@@ -166,6 +224,62 @@ public class DiagnosticsTest {
 		assertEquals("there should be 1 marker for each language server", 2, markers.length);
 	}
 
+	@Test
+	public void testPullDiagnostics() throws Exception {
+		LanguageServerPlugin.getDefault().getPreferenceStore().setValue("org.eclipse.lsp4e.test.server.diagnostics.pull", true);
+		try {
+			IFile file = TestUtils.createUniqueTestFile(project, "Diagnostic Other Text");
+			Range range = new Range(new Position(0, 0), new Position(0, 10));
+			MockLanguageServer.INSTANCE.setPulledDiagnostics(Collections.singletonList(
+					createDiagnostic("1", "message1", range, DiagnosticSeverity.Error, "source1")));
+			TestUtils.openEditor(file);
+			waitForAndAssertCondition(5_000, () -> file.findMarkers(LSPDiagnosticsToMarkers.LS_DIAGNOSTIC_MARKER_TYPE,
+					true, IResource.DEPTH_ZERO).length == 1);
+			IMarker marker = file.findMarkers(LSPDiagnosticsToMarkers.LS_DIAGNOSTIC_MARKER_TYPE, true,
+					IResource.DEPTH_ZERO)[0];
+
+			LanguageServerWrapper wrapper = LanguageServiceAccessor.getLSWrappers(file, c -> Boolean.TRUE).iterator().next();
+			long unchangedReports = DiagnosticsPuller.getUnchangedReportCount();
+			wrapper.getDiagnosticsPuller().pullDocumentDiagnostics(LSPEclipseUtils.toUri(file)).get();
+			assertEquals(unchangedReports + 1, DiagnosticsPuller.getUnchangedReportCount());
+			IMarker[] markers = file.findMarkers(LSPDiagnosticsToMarkers.LS_DIAGNOSTIC_MARKER_TYPE, true,
+					IResource.DEPTH_ZERO);
+			assertEquals(1, markers.length);
+			assertEquals(marker.getId(), markers[0].getId());
+		} finally {
+			LanguageServerPlugin.getDefault().getPreferenceStore().setToDefault("org.eclipse.lsp4e.test.server.diagnostics.pull");
+		}
+	}
+
+	@Test
+	public void testPulledResultIdForgottenOnClose() throws Exception {
+		LanguageServerPlugin.getDefault().getPreferenceStore().setValue("org.eclipse.lsp4e.test.server.diagnostics.pull", true);
+		try {
+			IFile file = TestUtils.createUniqueTestFile(project, "Diagnostic Other Text");
+			// keeps the server running once the first file is closed
+			IFile otherFile = TestUtils.createUniqueTestFile(project, "Diagnostic Other Text");
+			Range range = new Range(new Position(0, 0), new Position(0, 10));
+			MockLanguageServer.INSTANCE.setPulledDiagnostics(Collections.singletonList(
+					createDiagnostic("1", "message1", range, DiagnosticSeverity.Error, "source1")));
+			IEditorPart editor = TestUtils.openEditor(file);
+			TestUtils.openEditor(otherFile);
+			waitForAndAssertCondition(5_000, () -> file.findMarkers(LSPDiagnosticsToMarkers.LS_DIAGNOSTIC_MARKER_TYPE,
+					true, IResource.DEPTH_ZERO).length == 1);
+
+			LanguageServerWrapper wrapper = LanguageServiceAccessor.getLSWrappers(file, c -> Boolean.TRUE).iterator().next();
+			URI uri = LSPEclipseUtils.toUri(file);
+			TestUtils.closeEditor(editor, false);
+			waitForAndAssertCondition(5_000, () -> !wrapper.isConnectedTo(uri));
+
+			// without the result ID of the previous report, the server sends a full report
+			long unchangedReports = DiagnosticsPuller.getUnchangedReportCount();
+			wrapper.getDiagnosticsPuller().pullDocumentDiagnostics(uri).get();
+			assertEquals(unchangedReports, DiagnosticsPuller.getUnchangedReportCount());
+		} finally {
+			LanguageServerPlugin.getDefault().getPreferenceStore().setToDefault("org.eclipse.lsp4e.test.server.diagnostics.pull");
+		}
+	}
+
 	@Test
 	public void testDiagnosticRedrawingCalls() throws CoreException {
 		IFile file = TestUtils.createUniqueTestFile(project, "Diagnostic Other Text\nDiagnostic Other Text");
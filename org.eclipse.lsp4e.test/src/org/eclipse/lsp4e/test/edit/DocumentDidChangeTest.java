@@ -33,7 +33,9 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.lsp4e.LSPEclipseUtils;
+import org.eclipse.lsp4e.LanguageServerPlugin;
 import org.eclipse.lsp4e.LanguageServiceAccessor;
 import org.eclipse.lsp4e.test.AllCleanRule;
 import org.eclipse.lsp4e.test.TestUtils;
@@ -185,6 +187,41 @@ public class DocumentDidChangeTest {
 		}
 	}
 	
+	@Test
+	public void testIncrementalSyncCoalescing() throws Exception {
+		MockLanguageServer.INSTANCE.getInitializeResult().getCapabilities()
+				.setTextDocumentSync(TextDocumentSyncKind.Incremental);
+		IPreferenceStore store = LanguageServerPlugin.getDefault().getPreferenceStore();
+		String prefKey = "org.eclipse.lsp4e.test.server.didChange.coalescingWindow";
+		store.setValue(prefKey, 60_000);
+		try {
+			IFile testFile = TestUtils.createUniqueTestFile(project, "");
+			IEditorPart editor = TestUtils.openEditor(testFile);
+			ITextViewer viewer = LSPEclipseUtils.getTextViewer(editor);
+			IDocument document = viewer.getDocument();
+			LanguageServiceAccessor.getLanguageServers(document, null).get();
+
+			document.replace(0, 0, "a");
+			document.replace(1, 0, "b");
+			document.replace(2, 0, "c");
+			assertTrue(MockLanguageServer.INSTANCE.getDidChangeEvents().isEmpty());
+
+			// issuing a request against the document flushes the pending changes
+			LanguageServiceAccessor.getLanguageServers(document, null).get();
+			waitForAndAssertCondition(1_000, numberOfChangesIs(1));
+			DidChangeTextDocumentParams change = MockLanguageServer.INSTANCE.getDidChangeEvents().get(0);
+			assertEquals(3, change.getContentChanges().size());
+			assertEquals(Integer.valueOf(4), change.getTextDocument().getVersion());
+			for (int i = 0; i < 3; i++) {
+				TextDocumentContentChangeEvent changeEvent = change.getContentChanges().get(i);
+				assertEquals(i, changeEvent.getRange().getStart().getCharacter());
+				assertEquals(String.valueOf((char) ('a' + i)), changeEvent.getText());
+			}
+		} finally {
+			store.setToDefault(prefKey);
+		}
+	}
+
 	@Test
 	@Ignore(value = """
 			This test is currently failing because of synchronization issues.
@@ -312,6 +349,33 @@ public class DocumentDidChangeTest {
 		assertEquals("Hello World", change0.getText());
 	}
 
+	@Test
+	public void testFullSyncDebounced() throws Exception {
+		MockLanguageServer.INSTANCE.getInitializeResult().getCapabilities()
+				.setTextDocumentSync(TextDocumentSyncKind.Full);
+		IPreferenceStore store = LanguageServerPlugin.getDefault().getPreferenceStore();
+		String prefKey = "org.eclipse.lsp4e.test.server.didChange.coalescingWindow";
+		store.setValue(prefKey, 200);
+		try {
+			IFile testFile = TestUtils.createUniqueTestFile(project, "");
+			IEditorPart editor = TestUtils.openEditor(testFile);
+			ITextViewer viewer = LSPEclipseUtils.getTextViewer(editor);
+			IDocument document = viewer.getDocument();
+			LanguageServiceAccessor.getLanguageServers(document, null).get();
+
+			document.replace(0, 0, "Hello");
+			document.replace(5, 0, " World");
+			// the debounce window expiring sends a single snapshot of the latest version
+			waitForAndAssertCondition(2_000, numberOfChangesIs(1));
+			DidChangeTextDocumentParams change = MockLanguageServer.INSTANCE.getDidChangeEvents().get(0);
+			assertEquals(1, change.getContentChanges().size());
+			assertEquals("Hello World", change.getContentChanges().get(0).getText());
+			assertEquals(Integer.valueOf(3), change.getTextDocument().getVersion());
+		} finally {
+			store.setToDefault(prefKey);
+		}
+	}
+
 	@Test
 	public void testFullSyncExternalFile() throws Exception {
 		MockLanguageServer.INSTANCE.getInitializeResult().getCapabilities()
@@ -39,6 +39,8 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.content.IContentType;
+import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.lsp4e.LSPEclipseUtils;
@@ -50,6 +52,7 @@ import org.eclipse.lsp4e.ui.UI;
 import org.eclipse.lsp4j.CreateFile;
 import org.eclipse.lsp4j.Location;
 import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.PositionEncodingKind;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.RenameFile;
 import org.eclipse.lsp4j.ResourceOperation;
@@ -493,4 +496,48 @@ public class LSPEclipseUtilsTest {
 		assertEquals(36, actual.getEnd().getLine());
 		assertEquals(33, actual.getEnd().getCharacter());
 	}
+
+	@Test
+	public void testDocumentContentTypesAfterEdits() throws Exception {
+		IProject p = TestUtils.createProject(getClass().getSimpleName() + System.currentTimeMillis());
+		IFile file = TestUtils.createUniqueTestFile(p, "Hello");
+		IDocument document = LSPEclipseUtils.getDocument(file);
+		IContentType contentType = Platform.getContentTypeManager().getContentType("org.eclipse.lsp4e.test.content-type");
+		assertTrue(LSPEclipseUtils.getDocumentContentTypes(document).contains(contentType));
+		document.replace(document.getLength(), 0, " World");
+		assertTrue(LSPEclipseUtils.getDocumentContentTypes(document).contains(contentType));
+		document.replace(0, document.getLength(), "");
+		assertTrue(LSPEclipseUtils.getDocumentContentTypes(document).contains(contentType));
+	}
+
+	@Test
+	public void testDocumentContentTypesAfterDescribedContentEdits() throws Exception {
+		IProject p = TestUtils.createProject(getClass().getSimpleName() + System.currentTimeMillis());
+		IFile file = TestUtils.createUniqueTestFile(p, "lspt-xml", "<other/>");
+		IDocument document = LSPEclipseUtils.getDocument(file);
+		IContentType contentType = Platform.getContentTypeManager()
+				.getContentType("org.eclipse.lsp4e.test.content-type-xml-root");
+		assertFalse(LSPEclipseUtils.getDocumentContentTypes(document).contains(contentType));
+		// the root element is in the prefix read by the describer
+		document.replace(1, "other".length(), "lsp4eTest");
+		assertTrue(LSPEclipseUtils.getDocumentContentTypes(document).contains(contentType));
+		document.replace(document.getLength(), 0, "\n<!-- comment -->");
+		assertTrue(LSPEclipseUtils.getDocumentContentTypes(document).contains(contentType));
+		document.replace(1, "lsp4eTest".length(), "other");
+		assertFalse(LSPEclipseUtils.getDocumentContentTypes(document).contains(contentType));
+	}
+
+	@Test
+	public void testPositionEncodings() throws Exception {
+		// 'é' is 2 bytes in UTF-8, '😀' is 4 bytes in UTF-8 and 2 chars in UTF-16
+		IDocument document = new Document("first\naé😀b");
+		int offsetOfB = document.getLength() - 1;
+		assertEquals(new Position(1, 4), LSPEclipseUtils.toPosition(offsetOfB, document, PositionEncodingKind.UTF16));
+		assertEquals(new Position(1, 3), LSPEclipseUtils.toPosition(offsetOfB, document, PositionEncodingKind.UTF32));
+		assertEquals(new Position(1, 7), LSPEclipseUtils.toPosition(offsetOfB, document, PositionEncodingKind.UTF8));
+		assertEquals(offsetOfB, LSPEclipseUtils.toOffset(new Position(1, 4), document, PositionEncodingKind.UTF16));
+		assertEquals(offsetOfB, LSPEclipseUtils.toOffset(new Position(1, 3), document, PositionEncodingKind.UTF32));
+		assertEquals(offsetOfB, LSPEclipseUtils.toOffset(new Position(1, 7), document, PositionEncodingKind.UTF8));
+		assertEquals(6, LSPEclipseUtils.toOffset(new Position(1, 0), document, PositionEncodingKind.UTF8));
+	}
 }
@@ -158,6 +158,29 @@ public class HoverTest {
 		assertNotEquals("Hover content found only once", -1, index);
 	}
 
+	@Test
+	public void testMultipleHoversInParallel() throws Exception {
+		Hover hoverResponse = new Hover(Collections.singletonList(Either.forLeft("HoverContent")), new Range(new Position(0,  0), new Position(0, 10)));
+		MockLanguageServer.INSTANCE.setHover(hoverResponse);
+
+		IFile file = TestUtils.createUniqueTestFileMultiLS(project, "HoverRange Other Text");
+		ITextViewer viewer = TestUtils.openTextViewer(file);
+		// start the servers before measuring
+		assertNotNull(hover.getHoverInfo(viewer, new Region(11, 5)));
+
+		// each server answers in 300ms, the hover times out after 500ms
+		MockLanguageServer.INSTANCE.setTimeToProceedQueries(300);
+		try {
+			String hoverInfo = hover.getHoverInfo(viewer, new Region(0, 10));
+			int index = hoverInfo.indexOf("HoverContent");
+			assertNotEquals("Hover content not found", -1, index);
+			index = hoverInfo.indexOf("HoverContent", index + "HoverContent".length());
+			assertNotEquals("Hover content found only once", -1, index);
+		} finally {
+			MockLanguageServer.INSTANCE.setTimeToProceedQueries(0);
+		}
+	}
+
 	@Test
 	public void testIntroUrlLink() throws Exception {
 		Hover hoverResponse = new Hover(
@@ -32,9 +32,11 @@ import org.eclipse.lsp4j.CodeAction;
 import org.eclipse.lsp4j.CodeLens;
 import org.eclipse.lsp4j.CodeLensOptions;
 import org.eclipse.lsp4j.Command;
+import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.lsp4j.CompletionList;
 import org.eclipse.lsp4j.CompletionOptions;
 import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.DiagnosticRegistrationOptions;
 import org.eclipse.lsp4j.DidChangeNotebookDocumentParams;
 import org.eclipse.lsp4j.DidChangeTextDocumentParams;
 import org.eclipse.lsp4j.DidCloseNotebookDocumentParams;
@@ -59,6 +61,7 @@ import org.eclipse.lsp4j.RenameOptions;
 import org.eclipse.lsp4j.ServerCapabilities;
 import org.eclipse.lsp4j.SignatureHelp;
 import org.eclipse.lsp4j.SignatureHelpOptions;
+import org.eclipse.lsp4j.SignatureHelpParams;
 import org.eclipse.lsp4j.TextDocumentSyncKind;
 import org.eclipse.lsp4j.TextDocumentSyncOptions;
 import org.eclipse.lsp4j.TextEdit;
@@ -173,6 +176,7 @@ public final class MockLanguageServer implements LanguageServer {
 		capabilities.setColorProvider(Boolean.TRUE);
 		capabilities.setDocumentSymbolProvider(Boolean.TRUE);
 		capabilities.setLinkedEditingRangeProvider(new LinkedEditingRangeRegistrationOptions());
+		capabilities.setDiagnosticProvider(new DiagnosticRegistrationOptions());
 		return capabilities;
 	}
 
@@ -219,6 +223,14 @@ public final class MockLanguageServer implements LanguageServer {
 		return this.textDocumentService.getDidChangeEvents();
 	}
 
+	public List<CompletionItem> getResolvedCompletionItems() {
+		return this.textDocumentService.getResolvedCompletionItems();
+	}
+
+	public List<SignatureHelpParams> getSignatureHelpRequests() {
+		return this.textDocumentService.getSignatureHelpRequests();
+	}
+
 	public void setDidSaveCallback(CompletableFuture<DidSaveTextDocumentParams> didSaveExpectation) {
 		this.textDocumentService.setDidSaveCallback(didSaveExpectation);
 	}
@@ -283,6 +295,10 @@ public final class MockLanguageServer implements LanguageServer {
 		this.textDocumentService.setDiagnostics(diagnostics);
 	}
 
+	public void setPulledDiagnostics(List<Diagnostic> diagnostics) {
+		this.textDocumentService.setPulledDiagnostics(diagnostics);
+	}
+
 	public void setCodeActions(List<Either<Command, CodeAction>> codeActions) {
 		this.textDocumentService.setCodeActions(codeActions);
 	}
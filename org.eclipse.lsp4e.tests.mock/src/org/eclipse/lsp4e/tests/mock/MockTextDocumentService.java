@@ -20,6 +20,7 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Function;
@@ -41,6 +42,8 @@ import org.eclipse.lsp4j.DidCloseTextDocumentParams;
 import org.eclipse.lsp4j.DidOpenTextDocumentParams;
 import org.eclipse.lsp4j.DidSaveTextDocumentParams;
 import org.eclipse.lsp4j.DocumentColorParams;
+import org.eclipse.lsp4j.DocumentDiagnosticParams;
+import org.eclipse.lsp4j.DocumentDiagnosticReport;
 import org.eclipse.lsp4j.DocumentFormattingParams;
 import org.eclipse.lsp4j.DocumentHighlight;
 import org.eclipse.lsp4j.DocumentHighlightParams;
@@ -62,6 +65,8 @@ import org.eclipse.lsp4j.PrepareRenameParams;
 import org.eclipse.lsp4j.PrepareRenameResult;
 import org.eclipse.lsp4j.PublishDiagnosticsParams;
 import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.RelatedFullDocumentDiagnosticReport;
+import org.eclipse.lsp4j.RelatedUnchangedDocumentDiagnosticReport;
 import org.eclipse.lsp4j.ReferenceParams;
 import org.eclipse.lsp4j.RenameParams;
 import org.eclipse.lsp4j.SignatureHelp;
@@ -94,11 +99,14 @@ public class MockTextDocumentService implements TextDocumentService {
 	private CompletableFuture<DidCloseTextDocumentParams> didCloseCallback;
 	private List<TextEdit> mockWillSaveWaitUntilTextEdits;
 	private ConcurrentLinkedQueue<DidChangeTextDocumentParams> didChangeEvents = new ConcurrentLinkedQueue<>();
+	private ConcurrentLinkedQueue<CompletionItem> resolvedCompletionItems = new ConcurrentLinkedQueue<>();
+	private ConcurrentLinkedQueue<SignatureHelpParams> signatureHelpRequests = new ConcurrentLinkedQueue<>();
 
 	private Function<?, ? extends CompletableFuture<?>> _futureFactory;
 	private List<LanguageClient> remoteProxies;
 	private Location mockReferences;
 	private List<Diagnostic> diagnostics;
+	private List<Diagnostic> pulledDiagnostics;
 	private List<Either<Command, CodeAction>> mockCodeActions;
 	private List<ColorInformation> mockDocumentColors;
 	private WorkspaceEdit mockRenameEdit;
@@ -129,16 +137,20 @@ public class MockTextDocumentService implements TextDocumentService {
 
 	@Override
 	public CompletableFuture<CompletionItem> resolveCompletionItem(CompletionItem unresolved) {
-		return CompletableFuture.completedFuture(null);
+		resolvedCompletionItems.add(unresolved);
+		CompletionItem resolved = new CompletionItem(unresolved.getLabel());
+		resolved.setDocumentation("Documentation of " + unresolved.getLabel());
+		return CompletableFuture.completedFuture(resolved);
 	}
 
 	@Override
 	public CompletableFuture<Hover> hover(HoverParams position) {
-		return CompletableFuture.completedFuture(mockHover);
+		return futureFactory(mockHover);
 	}
 
 	@Override
 	public CompletableFuture<SignatureHelp> signatureHelp(SignatureHelpParams position) {
+		signatureHelpRequests.add(position);
 		return CompletableFuture.completedFuture(mockSignatureHelp);
 	}
 
@@ -255,6 +267,18 @@ public class MockTextDocumentService implements TextDocumentService {
 		}
 	}
 
+	@Override
+	public CompletableFuture<DocumentDiagnosticReport> diagnostic(DocumentDiagnosticParams params) {
+		String resultId = Integer.toString(Objects.hashCode(this.pulledDiagnostics));
+		if (resultId.equals(params.getPreviousResultId())) {
+			return futureFactory(new DocumentDiagnosticReport(new RelatedUnchangedDocumentDiagnosticReport(resultId)));
+		}
+		RelatedFullDocumentDiagnosticReport report = new RelatedFullDocumentDiagnosticReport(
+				this.pulledDiagnostics != null ? this.pulledDiagnostics : Collections.emptyList());
+		report.setResultId(resultId);
+		return futureFactory(new DocumentDiagnosticReport(report));
+	}
+
 	@Override
 	public void didSave(DidSaveTextDocumentParams params) {
 		if (didSaveCallback != null) {
@@ -341,12 +365,27 @@ public class MockTextDocumentService implements TextDocumentService {
 		this.mockCodeActions = new ArrayList<>();
 		this.mockRenameEdit = null;
 		this.documentSymbols = Collections.emptyList();
+		this.pulledDiagnostics = null;
+		this.resolvedCompletionItems.clear();
+		this.signatureHelpRequests.clear();
+	}
+
+	public List<CompletionItem> getResolvedCompletionItems() {
+		return new ArrayList<>(resolvedCompletionItems);
+	}
+
+	public List<SignatureHelpParams> getSignatureHelpRequests() {
+		return new ArrayList<>(signatureHelpRequests);
 	}
 
 	public void setDiagnostics(List<Diagnostic> diagnostics) {
 		this.diagnostics = diagnostics;
 	}
 
+	public void setPulledDiagnostics(List<Diagnostic> pulledDiagnostics) {
+		this.pulledDiagnostics = pulledDiagnostics;
+	}
+
 	public void addRemoteProxy(LanguageClient remoteProxy) {
 		this.remoteProxies.add(remoteProxy);
 	}
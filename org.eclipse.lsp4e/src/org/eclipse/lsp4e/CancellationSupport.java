@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Keeps track of the LSP4J request futures sent for one operation, so that
+ * cancelling the operation (or a future derived from the requests with
+ * <code>thenApply</code>, <code>thenCompose</code>..., or the progress monitor
+ * of the job running the operation) cancels the JSON-RPC requests themselves
+ * and lets LSP4J send <code>$/cancelRequest</code> to the language servers.
+ */
+public final class CancellationSupport implements CancelChecker {
+
+	private static final long MONITOR_POLLING_INTERVAL = 100;
+
+	private static final ScheduledExecutorService MONITOR_WATCHER = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("LS-cancellation-watcher-%d").setDaemon(true).build()); //$NON-NLS-1$
+
+	private static final AtomicLong cancelledRequests = new AtomicLong();
+
+	private final List<CompletableFuture<?>> requests = new CopyOnWriteArrayList<>();
+	private final @Nullable IProgressMonitor monitor;
+	private volatile boolean cancelled;
+	private ScheduledFuture<?> monitorWatch;
+
+	public CancellationSupport() {
+		this(null);
+	}
+
+	/**
+	 * @param monitor
+	 *            a monitor whose cancellation should cancel the requests, or
+	 *            <code>null</code>
+	 */
+	public CancellationSupport(@Nullable IProgressMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Registers a request sent to a language server, cancelling it right away if
+	 * this operation is already cancelled.
+	 *
+	 * @param request
+	 *            the future returned by the LSP4J service method
+	 * @return the given request
+	 */
+	public <T> @NonNull CompletableFuture<T> execute(@NonNull CompletableFuture<T> request) {
+		if (request.isDone()) {
+			return request;
+		}
+		requests.add(request);
+		request.whenComplete((result, error) -> requests.remove(request));
+		if (isCanceled()) {
+			cancel(request);
+		} else {
+			watchMonitor();
+		}
+		return request;
+	}
+
+	/**
+	 * Makes the cancellation of a future derived from the registered requests
+	 * cancel the requests.
+	 *
+	 * @param derived
+	 *            a future computed from the requests of this operation
+	 * @return the given derived future
+	 */
+	public <F extends CompletableFuture<?>> @NonNull F bind(@NonNull F derived) {
+		derived.whenComplete((result, error) -> {
+			if (derived.isCancelled()) {
+				cancel();
+			}
+		});
+		return derived;
+	}
+
+	/**
+	 * Cancels all the pending requests of this operation, as well as the ones
+	 * registered later on.
+	 */
+	public void cancel() {
+		cancelled = true;
+		synchronized (this) {
+			if (monitorWatch != null) {
+				monitorWatch.cancel(false);
+				monitorWatch = null;
+			}
+		}
+		requests.forEach(CancellationSupport::cancel);
+	}
+
+	@Override
+	public boolean isCanceled() {
+		if (!cancelled && monitor != null && monitor.isCanceled()) {
+			cancel();
+		}
+		return cancelled;
+	}
+
+	@Override
+	public void checkCanceled() {
+		if (isCanceled()) {
+			throw new CancellationException();
+		}
+	}
+
+	private synchronized void watchMonitor() {
+		if (monitor == null || monitorWatch != null) {
+			return;
+		}
+		monitorWatch = MONITOR_WATCHER.scheduleWithFixedDelay(() -> {
+			if (isCanceled()) {
+				return;
+			}
+			synchronized (this) {
+				if (requests.isEmpty() && monitorWatch != null) {
+					monitorWatch.cancel(false);
+					monitorWatch = null;
+				}
+			}
+		}, MONITOR_POLLING_INTERVAL, MONITOR_POLLING_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Cancels the given request if it is still in flight
+	 */
+	static void cancel(@NonNull CompletableFuture<?> request) {
+		if (!request.isDone() && request.cancel(true)) {
+			cancelledRequests.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return the number of requests that were cancelled while in flight
+	 */
+	public static long getCancelledRequestCount() {
+		return cancelledRequests.get();
+	}
+
+}
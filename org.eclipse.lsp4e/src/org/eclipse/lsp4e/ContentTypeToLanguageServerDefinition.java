@@ -56,7 +56,7 @@ public class ContentTypeToLanguageServerDefinition extends SimpleEntry<IContentT
 		return enablement;
 	}
 
-	private String getPreferencesKey() {
+	String getPreferencesKey() {
 		return getValue().id + "/" + getKey().getId(); //$NON-NLS-1$
 	}
 
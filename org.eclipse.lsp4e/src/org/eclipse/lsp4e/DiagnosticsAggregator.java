@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.lsp4j.PublishDiagnosticsParams;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Collects the diagnostics published by all the language servers during a
+ * short window, keeps only the latest ones for each document, and applies them
+ * all in a single workspace operation, so that a burst of
+ * <code>publishDiagnostics</code> (e.g. after a project build) results in a
+ * single resource change notification instead of one per document.
+ * <p>
+ * Diagnostics are always applied on a dedicated worker thread, so the thread
+ * reading the messages of the language servers never waits for markers to be
+ * updated. Diagnostics superseded by more recent ones for the same document, or
+ * computed for an outdated version of the document, are discarded.
+ * </p>
+ * <p>
+ * As a consequence, the diagnostics consumers of the language clients (see
+ * {@link LanguageClientImpl#setDiagnosticsConsumer(Consumer)}) are called
+ * asynchronously on the <code>LS-diagnostics</code> daemon thread, inside a
+ * workspace operation run without scheduling rule and with
+ * {@link IWorkspace#AVOID_UPDATE}. They must not rely on being called on the
+ * thread which received the notification, nor on holding a scheduling rule.
+ * </p>
+ */
+public final class DiagnosticsAggregator {
+
+	public static final DiagnosticsAggregator INSTANCE = new DiagnosticsAggregator();
+
+	private static final String BATCHING_WINDOW__KEY = "diagnostics.batchingWindow"; //$NON-NLS-1$
+	private static final int DEFAULT_BATCHING_WINDOW = 50;
+	/**
+	 * Maximum number of documents in a batch: once reached, the batch is handed to
+	 * the worker thread as is, without waiting for the end of the batching
+	 * window, and a new batch is started
+	 */
+	private static final int MAX_PENDING_DOCUMENTS = 10_000;
+
+	private record Key(@NonNull Consumer<PublishDiagnosticsParams> consumer, String uri) {
+	}
+
+	private record PendingDiagnostics(@NonNull LanguageServerWrapper wrapper,
+			@NonNull PublishDiagnosticsParams diagnostics) {
+	}
+
+	private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("LS-diagnostics-%d").setDaemon(true).build()); //$NON-NLS-1$
+
+	private Map<Key, PendingDiagnostics> pendingDiagnostics = new LinkedHashMap<>();
+	/**
+	 * Batches which reached {@link #MAX_PENDING_DOCUMENTS}, applied in order before
+	 * the pending diagnostics
+	 */
+	private final List<Map<Key, PendingDiagnostics>> fullBatches = new ArrayList<>();
+	private ScheduledFuture<?> pendingFlush;
+	private final AtomicLong supersededCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	private DiagnosticsAggregator() {
+		// singleton
+	}
+
+	/**
+	 * Converts a language server ID to the preference ID to define the time window
+	 * (in milliseconds) during which published diagnostics are batched
+	 *
+	 * @return language server's preference ID to define the diagnostics batching
+	 *         window
+	 */
+	static @NonNull String lsToBatchingWindowKey(String serverId) {
+		return serverId + '.' + BATCHING_WINDOW__KEY;
+	}
+
+	/**
+	 * @return the diagnostics batching window in milliseconds for the given
+	 *         server; a negative value in the preferences disables batching
+	 *         (diagnostics are still applied asynchronously)
+	 */
+	private static int lsToBatchingWindow(String serverId) {
+		int batchingWindow = LanguageServerPlugin.getDefault().getPreferenceStore()
+				.getInt(lsToBatchingWindowKey(serverId));
+		return batchingWindow != 0 ? batchingWindow : DEFAULT_BATCHING_WINDOW;
+	}
+
+	/**
+	 * Hands the given diagnostics to the given consumer with the next batch,
+	 * without waiting for them to be applied. Never blocks, as it's called by
+	 * the threads reading the messages of the language servers.
+	 */
+	public void publish(@NonNull LanguageServerWrapper wrapper, @NonNull Consumer<PublishDiagnosticsParams> consumer,
+			@NonNull PublishDiagnosticsParams diagnostics) {
+		if (isOutdated(wrapper, diagnostics)) {
+			droppedCount.incrementAndGet();
+			return;
+		}
+		int batchingWindow = Math.max(0, lsToBatchingWindow(wrapper.serverDefinition.id));
+		final Key key = new Key(consumer, diagnostics.getUri());
+		synchronized (this) {
+			if (pendingDiagnostics.size() >= MAX_PENDING_DOCUMENTS && !pendingDiagnostics.containsKey(key)) {
+				// queued behind the batch being applied, if any, rather than waiting for it
+				fullBatches.add(pendingDiagnostics);
+				pendingDiagnostics = new LinkedHashMap<>();
+				flusher.execute(this::flush);
+			}
+			if (pendingDiagnostics.put(key, new PendingDiagnostics(wrapper, diagnostics)) != null) {
+				supersededCount.incrementAndGet();
+			}
+			if (pendingFlush == null) {
+				pendingFlush = flusher.schedule(this::flush, batchingWindow, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * @return whether the given diagnostics were computed for a version of the
+	 *         document older than the one currently synchronized with the server
+	 */
+	private static boolean isOutdated(@NonNull LanguageServerWrapper wrapper,
+			@NonNull PublishDiagnosticsParams diagnostics) {
+		final Integer version = diagnostics.getVersion();
+		if (version == null) {
+			return false;
+		}
+		final URI uri = LSPEclipseUtils.toUri(diagnostics.getUri());
+		return uri != null && wrapper.getVersion(uri) > version;
+	}
+
+	private void flush() {
+		final List<Map<Key, PendingDiagnostics>> batches;
+		synchronized (this) {
+			batches = new ArrayList<>(fullBatches);
+			batches.add(pendingDiagnostics);
+			fullBatches.clear();
+			pendingDiagnostics = new LinkedHashMap<>();
+			pendingFlush = null;
+		}
+		batches.forEach(this::apply);
+	}
+
+	private void apply(Map<Key, PendingDiagnostics> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		try {
+			// marker changes of nested operations are only broadcast once the outer one is done
+			workspace.run(monitor -> batch.forEach((key, pending) -> {
+				if (isOutdated(pending.wrapper(), pending.diagnostics())) {
+					droppedCount.incrementAndGet();
+					return;
+				}
+				try {
+					key.consumer().accept(pending.diagnostics());
+				} catch (RuntimeException e) {
+					LanguageServerPlugin.logError(e);
+				}
+			}), null, IWorkspace.AVOID_UPDATE, new NullProgressMonitor());
+		} catch (CoreException e) {
+			LanguageServerPlugin.logError(e);
+		}
+	}
+
+	/**
+	 * @return the number of sets of diagnostics discarded because a more recent
+	 *         set was published for the same document before they were applied
+	 */
+	public static long getSupersededCount() {
+		return INSTANCE.supersededCount.get();
+	}
+
+	/**
+	 * @return the number of sets of diagnostics discarded because they were
+	 *         computed for an outdated version of the document
+	 */
+	public static long getDroppedCount() {
+		return INSTANCE.droppedCount.get();
+	}
+
+}
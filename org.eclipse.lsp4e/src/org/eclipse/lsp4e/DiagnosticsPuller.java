@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.DiagnosticRegistrationOptions;
+import org.eclipse.lsp4j.DocumentDiagnosticParams;
+import org.eclipse.lsp4j.DocumentDiagnosticReport;
+import org.eclipse.lsp4j.FullDocumentDiagnosticReport;
+import org.eclipse.lsp4j.PreviousResultId;
+import org.eclipse.lsp4j.ProgressParams;
+import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.eclipse.lsp4j.RelatedFullDocumentDiagnosticReport;
+import org.eclipse.lsp4j.ServerCapabilities;
+import org.eclipse.lsp4j.TextDocumentIdentifier;
+import org.eclipse.lsp4j.UnchangedDocumentDiagnosticReport;
+import org.eclipse.lsp4j.WorkspaceDiagnosticParams;
+import org.eclipse.lsp4j.WorkspaceDiagnosticReport;
+import org.eclipse.lsp4j.WorkspaceDiagnosticReportPartialResult;
+import org.eclipse.lsp4j.WorkspaceDocumentDiagnosticReport;
+import org.eclipse.lsp4j.WorkspaceFullDocumentDiagnosticReport;
+import org.eclipse.lsp4j.WorkspaceUnchangedDocumentDiagnosticReport;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+/**
+ * Requests the diagnostics of a language server with
+ * <code>textDocument/diagnostic</code> and <code>workspace/diagnostic</code>
+ * (LSP 3.17 pull diagnostics) instead of waiting for it to publish them.
+ * <p>
+ * The result ID of the last report received for each document is sent back
+ * with the next request, so that the server can answer that nothing changed
+ * since: such <code>unchanged</code> reports leave the markers untouched.
+ * Workspace diagnostics are requested with a partial result token, so that the
+ * reports streamed by the server are applied as they arrive.
+ * </p>
+ */
+public final class DiagnosticsPuller {
+
+	private static final String PULL_DIAGNOSTICS__KEY = "diagnostics.pull"; //$NON-NLS-1$
+	private static final String PARTIAL_RESULT_TOKEN_PREFIX = "lsp4e-diagnostics-"; //$NON-NLS-1$
+
+	private static final AtomicInteger partialResultTokens = new AtomicInteger();
+	private static final AtomicLong unchangedReports = new AtomicLong();
+	private static volatile Gson gson;
+
+	private final @NonNull LanguageServerWrapper wrapper;
+	private final @NonNull LanguageServer server;
+	private final @NonNull Consumer<PublishDiagnosticsParams> diagnosticsSink;
+	private final Map<URI, String> resultIds = new ConcurrentHashMap<>();
+	private final Map<URI, CompletableFuture<?>> documentRequests = new ConcurrentHashMap<>();
+	private final Map<String, Consumer<WorkspaceDiagnosticReportPartialResult>> partialResultHandlers = new ConcurrentHashMap<>();
+	private CompletableFuture<?> workspaceRequest;
+
+	/**
+	 * @param diagnosticsSink
+	 *            applies the full reports received, as if they were published by
+	 *            the server
+	 */
+	DiagnosticsPuller(@NonNull LanguageServerWrapper wrapper, @NonNull LanguageServer server,
+			@NonNull Consumer<PublishDiagnosticsParams> diagnosticsSink) {
+		this.wrapper = wrapper;
+		this.server = server;
+		this.diagnosticsSink = diagnosticsSink;
+	}
+
+	/**
+	 * Converts a language server ID to the preference ID to enable pull
+	 * diagnostics
+	 *
+	 * @return language server's preference ID to enable pull diagnostics
+	 */
+	static @NonNull String lsToPullDiagnosticsKey(String serverId) {
+		return serverId + '.' + PULL_DIAGNOSTICS__KEY;
+	}
+
+	/**
+	 * @return whether pull diagnostics are enabled in the preferences for the
+	 *         given server
+	 */
+	static boolean isEnabled(String serverId) {
+		return LanguageServerPlugin.getDefault().getPreferenceStore().getBoolean(lsToPullDiagnosticsKey(serverId));
+	}
+
+	private @Nullable DiagnosticRegistrationOptions getDiagnosticProvider() {
+		if (!isEnabled(wrapper.serverDefinition.id)) {
+			return null;
+		}
+		ServerCapabilities serverCapabilities = wrapper.getServerCapabilities();
+		return serverCapabilities != null ? serverCapabilities.getDiagnosticProvider() : null;
+	}
+
+	/**
+	 * Requests the diagnostics of the given document, if the server supports it,
+	 * cancelling the previous request for the same document.
+	 *
+	 * @return a future completed once the report is handled
+	 */
+	public @NonNull CompletableFuture<Void> pullDocumentDiagnostics(@NonNull URI uri) {
+		final DiagnosticRegistrationOptions diagnosticProvider = getDiagnosticProvider();
+		if (diagnosticProvider == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		final DocumentDiagnosticParams params = new DocumentDiagnosticParams(new TextDocumentIdentifier(uri.toString()));
+		params.setIdentifier(diagnosticProvider.getIdentifier());
+		params.setPreviousResultId(resultIds.get(uri));
+		final int version = wrapper.getVersion(uri);
+		final CompletableFuture<DocumentDiagnosticReport> request = server.getTextDocumentService().diagnostic(params);
+		final CompletableFuture<?> previousRequest = documentRequests.put(uri, request);
+		if (previousRequest != null) {
+			CancellationSupport.cancel(previousRequest);
+		}
+		return request.thenAccept(report -> {
+			if (!documentRequests.remove(uri, request) || report == null) {
+				// superseded by a more recent request, or the document was closed meanwhile
+				return;
+			}
+			if (report.isLeft()) {
+				RelatedFullDocumentDiagnosticReport fullReport = report.getLeft();
+				acceptFullReport(uri, fullReport, version);
+				if (fullReport.getRelatedDocuments() != null) {
+					fullReport.getRelatedDocuments().forEach((relatedUri, relatedReport) -> acceptRelatedReport(
+							LSPEclipseUtils.toUri(relatedUri), relatedReport));
+				}
+			} else {
+				acceptUnchangedReport(uri, report.getRight().getResultId());
+				if (report.getRight().getRelatedDocuments() != null) {
+					report.getRight().getRelatedDocuments().forEach((relatedUri, relatedReport) -> acceptRelatedReport(
+							LSPEclipseUtils.toUri(relatedUri), relatedReport));
+				}
+			}
+		}).exceptionally(e -> {
+			documentRequests.remove(uri, request);
+			if (!request.isCancelled()) {
+				LanguageServerPlugin.logError(e);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Requests the diagnostics of the whole workspace, if the server supports it,
+	 * cancelling the previous request. The reports the server streams as partial
+	 * results are applied as soon as they are received.
+	 *
+	 * @return a future completed once the whole report is handled
+	 */
+	public @NonNull CompletableFuture<Void> pullWorkspaceDiagnostics() {
+		final DiagnosticRegistrationOptions diagnosticProvider = getDiagnosticProvider();
+		if (diagnosticProvider == null || !Boolean.TRUE.equals(diagnosticProvider.isWorkspaceDiagnostics())) {
+			return CompletableFuture.completedFuture(null);
+		}
+		final List<PreviousResultId> previousResultIds = new ArrayList<>(resultIds.size());
+		resultIds.forEach((uri, resultId) -> previousResultIds.add(new PreviousResultId(uri.toString(), resultId)));
+		final WorkspaceDiagnosticParams params = new WorkspaceDiagnosticParams(previousResultIds);
+		params.setIdentifier(diagnosticProvider.getIdentifier());
+		final String token = PARTIAL_RESULT_TOKEN_PREFIX + partialResultTokens.incrementAndGet();
+		params.setPartialResultToken(Either.forLeft(token));
+		partialResultHandlers.put(token, partialResult -> acceptWorkspaceReports(partialResult.getItems()));
+		final CompletableFuture<WorkspaceDiagnosticReport> request = server.getWorkspaceService().diagnostic(params);
+		synchronized (this) {
+			if (workspaceRequest != null) {
+				CancellationSupport.cancel(workspaceRequest);
+			}
+			workspaceRequest = request;
+		}
+		return request.thenAccept(report -> {
+			if (report != null) {
+				acceptWorkspaceReports(report.getItems());
+			}
+		}).whenComplete((result, error) -> {
+			partialResultHandlers.remove(token);
+			if (error != null && !request.isCancelled()) {
+				LanguageServerPlugin.logError(error);
+			}
+		}).exceptionally(e -> null);
+	}
+
+	/**
+	 * Pulls the diagnostics of the given documents and of the workspace again,
+	 * as requested by the server with <code>workspace/diagnostic/refresh</code>
+	 */
+	@NonNull
+	CompletableFuture<Void> refresh(@NonNull Iterable<URI> documents) {
+		final List<CompletableFuture<Void>> pulls = new ArrayList<>();
+		documents.forEach(uri -> pulls.add(pullDocumentDiagnostics(uri)));
+		pulls.add(pullWorkspaceDiagnostics());
+		return CompletableFuture.allOf(pulls.toArray(new CompletableFuture[pulls.size()]));
+	}
+
+	/**
+	 * Forgets the given document once it's closed: its pending request is
+	 * cancelled, and the ID of its last report isn't sent anymore
+	 */
+	void forget(@NonNull URI uri) {
+		resultIds.remove(uri);
+		final CompletableFuture<?> request = documentRequests.remove(uri);
+		if (request != null) {
+			CancellationSupport.cancel(request);
+		}
+	}
+
+	/**
+	 * Forgets all the documents and cancels the pending requests, once the
+	 * server is stopped
+	 */
+	void dispose() {
+		resultIds.clear();
+		documentRequests.keySet().forEach(this::forget);
+		synchronized (this) {
+			if (workspaceRequest != null) {
+				CancellationSupport.cancel(workspaceRequest);
+				workspaceRequest = null;
+			}
+		}
+	}
+
+	/**
+	 * Handles the partial result of a workspace diagnostic request
+	 *
+	 * @return whether the given progress notification was a partial result of a
+	 *         request of this puller
+	 */
+	boolean acceptPartialResult(@NonNull ProgressParams params) {
+		final String token = params.getToken().map(Function.identity(), Object::toString);
+		final Consumer<WorkspaceDiagnosticReportPartialResult> handler = token != null
+				? partialResultHandlers.get(token)
+				: null;
+		if (handler == null || !params.getValue().isRight()) {
+			return false;
+		}
+		final Object value = params.getValue().getRight();
+		if (value instanceof WorkspaceDiagnosticReportPartialResult partialResult) {
+			handler.accept(partialResult);
+		} else if (value instanceof JsonElement json) {
+			handler.accept(getGson().fromJson(json, WorkspaceDiagnosticReportPartialResult.class));
+		}
+		return true;
+	}
+
+	private static Gson getGson() {
+		if (gson == null) {
+			gson = new MessageJsonHandler(Collections.emptyMap()).getGson();
+		}
+		return gson;
+	}
+
+	private void acceptWorkspaceReports(@Nullable List<WorkspaceDocumentDiagnosticReport> reports) {
+		if (reports == null) {
+			return;
+		}
+		for (WorkspaceDocumentDiagnosticReport report : reports) {
+			if (report.isLeft()) {
+				WorkspaceFullDocumentDiagnosticReport fullReport = report.getLeft();
+				URI uri = LSPEclipseUtils.toUri(fullReport.getUri());
+				if (uri != null) {
+					acceptFullReport(uri, fullReport, fullReport.getVersion() != null ? fullReport.getVersion() : -1);
+				}
+			} else {
+				WorkspaceUnchangedDocumentDiagnosticReport unchangedReport = report.getRight();
+				URI uri = LSPEclipseUtils.toUri(unchangedReport.getUri());
+				if (uri != null) {
+					acceptUnchangedReport(uri, unchangedReport.getResultId());
+				}
+			}
+		}
+	}
+
+	private void acceptRelatedReport(@Nullable URI uri,
+			Either<FullDocumentDiagnosticReport, UnchangedDocumentDiagnosticReport> report) {
+		if (uri == null || report == null) {
+			return;
+		}
+		if (report.isLeft()) {
+			acceptFullReport(uri, report.getLeft(), -1);
+		} else {
+			acceptUnchangedReport(uri, report.getRight().getResultId());
+		}
+	}
+
+	/**
+	 * @param version
+	 *            the version of the document the diagnostics were computed for,
+	 *            or a negative value if unknown
+	 */
+	private void acceptFullReport(@NonNull URI uri, @NonNull FullDocumentDiagnosticReport report, int version) {
+		if (report.getResultId() != null) {
+			resultIds.put(uri, report.getResultId());
+		} else {
+			resultIds.remove(uri);
+		}
+		List<Diagnostic> items = report.getItems() != null ? report.getItems() : Collections.emptyList();
+		diagnosticsSink.accept(new PublishDiagnosticsParams(uri.toString(), items, version >= 0 ? version : null));
+	}
+
+	private void acceptUnchangedReport(@NonNull URI uri, String resultId) {
+		if (resultId != null) {
+			resultIds.put(uri, resultId);
+		}
+		unchangedReports.incrementAndGet();
+	}
+
+	/**
+	 * @return the number of <code>unchanged</code> reports received, which did
+	 *         not require any marker update
+	 */
+	public static long getUnchangedReportCount() {
+		return unchangedReports.get();
+	}
+
+}
@@ -15,6 +15,7 @@ package org.eclipse.lsp4e;
 
 import java.io.File;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -22,9 +23,12 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
 import org.eclipse.core.filebuffers.IFileBuffer;
@@ -41,6 +45,8 @@ import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.ISynchronizable;
+import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.lsp4e.ui.Messages;
 import org.eclipse.lsp4j.DidChangeTextDocumentParams;
 import org.eclipse.lsp4j.DidCloseTextDocumentParams;
@@ -63,23 +69,69 @@ import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.eclipse.lsp4j.services.LanguageServer;
 import org.eclipse.osgi.util.NLS;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 final class DocumentContentSynchronizer implements IDocumentListener {
 
+	private static final ScheduledExecutorService DID_CHANGE_FLUSHER = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("LS-didChange-flusher-%d").setDaemon(true).build()); //$NON-NLS-1$
+
 	private final @NonNull LanguageServerWrapper languageServerWrapper;
 	private final @NonNull IDocument document;
 	private final @NonNull URI fileUri;
 	private final TextDocumentSyncKind syncKind;
+	/**
+	 * Ordered lane on the pool of the language server, isolating document
+	 * synchronization from the common pool
+	 */
+	private final @NonNull Executor lane;
 
 	private int version = 0;
 	private DidChangeTextDocumentParams changeParams;
 	private long openSaveStamp;
-	private final AtomicReference<CompletableFuture<LanguageServer>> lastChangeFuture;
 	private LanguageServer languageServer;
 	private IPreferenceStore store;
+	private volatile int coalescingWindow;
+	private final IPropertyChangeListener coalescingWindowListener = event -> {
+		if (lsToDidChangeCoalescingWindowKey(this.languageServerWrapper.serverDefinition.id)
+				.equals(event.getProperty())) {
+			this.coalescingWindow = lsToDidChangeCoalescingWindow();
+		}
+	};
+
+	/**
+	 * Changes which are not sent yet because they are waiting for the coalescing
+	 * window to expire. Guarded by {@link #pendingChangesLock}, which also guards
+	 * {@link #lastChangeFuture} so that each stage is chained exactly once and in
+	 * the order the notifications were produced.
+	 */
+	private final Object pendingChangesLock = new Object();
+	private CompletableFuture<LanguageServer> lastChangeFuture;
+	private DidChangeTextDocumentParams pendingChangeParams;
+	private ScheduledFuture<?> pendingFlush;
+	/**
+	 * With full document sync, whether the document changed since the last text
+	 * snapshot was sent. Guarded by {@link #pendingChangesLock}.
+	 */
+	private boolean fullTextDirty;
+	/**
+	 * With full document sync and a document without lock object, the text of
+	 * the latest version, taken when the change was notified. Guarded by
+	 * {@link #pendingChangesLock}.
+	 */
+	private String pendingFullText;
+	/**
+	 * Holds back the stages chained while holding {@link #pendingChangesLock} (and
+	 * possibly the document lock), so that they are only submitted to the lane
+	 * once the locks are released, see {@link #releaseSubmissions()}. Guarded by
+	 * {@link #pendingChangesLock}.
+	 */
+	private CompletableFuture<Void> submissionGate;
 
 	public DocumentContentSynchronizer(@NonNull LanguageServerWrapper languageServerWrapper,
 			@NonNull IDocument document, TextDocumentSyncKind syncKind) {
 		this.languageServerWrapper = languageServerWrapper;
+		this.lane = languageServerWrapper.createOrderedLane();
 		URI uri = LSPEclipseUtils.toUri(document);
 		if (uri == null) {
 			throw new NullPointerException();
@@ -96,6 +148,8 @@ final class DocumentContentSynchronizer implements IDocumentListener {
 
 		this.document = document;
 		this.store = LanguageServerPlugin.getDefault().getPreferenceStore();
+		this.coalescingWindow = lsToDidChangeCoalescingWindow();
+		this.store.addPropertyChangeListener(coalescingWindowListener);
 
 		// add a document buffer
 		TextDocumentItem textDocument = new TextDocumentItem();
@@ -116,11 +170,12 @@ final class DocumentContentSynchronizer implements IDocumentListener {
 
 		textDocument.setLanguageId(languageId);
 		textDocument.setVersion(++version);
-		lastChangeFuture = new AtomicReference<>(languageServerWrapper.getInitializedServer().thenApplyAsync(ls -> {
+		lastChangeFuture = languageServerWrapper.getInitializedServer().thenApplyAsync(ls -> {
 			this.languageServer = ls;
 			ls.getTextDocumentService().didOpen(new DidOpenTextDocumentParams(textDocument));
+			languageServerWrapper.pullDiagnostics(fileUri);
 			return ls;
-		}));
+		}, lane);
 	}
 
 	/**
@@ -133,24 +188,44 @@ final class DocumentContentSynchronizer implements IDocumentListener {
  	 */
 	private <U> @NonNull CompletableFuture<U> executeOnCurrentVersionAsync(
 			Function<LanguageServer, ? extends CompletionStage<U>> fn) {
-		AtomicReference<CompletableFuture<U>> resValueFuture = new AtomicReference<>();
-		lastChangeFuture.updateAndGet(f -> {
-			CompletableFuture<U> valueFuture = f.thenComposeAsync(fn);
-			resValueFuture.set(valueFuture);
-			// We ignore any exceptions that happen when executing the given future
-			return valueFuture.handle((value, error) -> this.languageServer);
-		});
-		return resValueFuture.get();
+		flushPendingChanges();
+		try {
+			synchronized (pendingChangesLock) {
+				CompletableFuture<U> valueFuture = gatedLastChangeFuture().thenComposeAsync(fn, lane);
+				// We ignore any exceptions that happen when executing the given future
+				lastChangeFuture = valueFuture.handle((value, error) -> this.languageServer);
+				return valueFuture;
+			}
+		} finally {
+			releaseSubmissions();
+		}
 	}
 
 	CompletableFuture<LanguageServer> lastChangeFuture() {
-		return lastChangeFuture.get();
+		flushPendingChanges();
+		synchronized (pendingChangesLock) {
+			return lastChangeFuture;
+		}
 	}
 
 	@Override
 	public void documentChanged(DocumentEvent event) {
 		checkEvent(event);
+		final int coalescingWindow = this.coalescingWindow;
 		if (syncKind == TextDocumentSyncKind.Full) {
+			if (coalescingWindow > 0) {
+				// only mark the document as dirty, the full text is read once when the
+				// pending changes are flushed under the document lock. Without lock, the
+				// text can only be read consistently with its version while the change
+				// is notified, so it is taken right away and only the send is deferred.
+				synchronized (pendingChangesLock) {
+					++version;
+					fullTextDirty = true;
+					pendingFullText = getDocumentLock() == null ? document.get() : null;
+					scheduleFlush(coalescingWindow);
+				}
+				return;
+			}
 			createChangeEvent(event);
 		}
 
@@ -158,11 +233,139 @@ final class DocumentContentSynchronizer implements IDocumentListener {
 			final DidChangeTextDocumentParams changeParamsToSend = changeParams;
 			changeParams = null;
 
-			changeParamsToSend.getTextDocument().setVersion(++version);
-			lastChangeFuture.updateAndGet(f -> f.thenApplyAsync(ls -> {
-				ls.getTextDocumentService().didChange(changeParamsToSend);
-				return ls;
-			}));
+			try {
+				synchronized (pendingChangesLock) {
+					changeParamsToSend.getTextDocument().setVersion(++version);
+					if (coalescingWindow <= 0 && pendingChangeParams == null && !fullTextDirty) {
+						sendDidChange(changeParamsToSend);
+					} else {
+						coalesce(changeParamsToSend, coalescingWindow);
+					}
+				}
+			} finally {
+				releaseSubmissions();
+			}
+		}
+	}
+
+	/**
+	 * Merges the given change into the pending notification. Incremental changes
+	 * are appended (the LSP applies them in order), a full text change replaces
+	 * the previous one. The merged notification carries the latest version.
+	 */
+	private void coalesce(DidChangeTextDocumentParams changeParamsToSend, int coalescingWindow) {
+		if (pendingChangeParams == null) {
+			pendingChangeParams = new DidChangeTextDocumentParams(changeParamsToSend.getTextDocument(),
+					new ArrayList<>(changeParamsToSend.getContentChanges()));
+		} else {
+			if (syncKind == TextDocumentSyncKind.Full) {
+				pendingChangeParams.getContentChanges().clear();
+			}
+			pendingChangeParams.getContentChanges().addAll(changeParamsToSend.getContentChanges());
+			pendingChangeParams.setTextDocument(changeParamsToSend.getTextDocument());
+		}
+		if (coalescingWindow <= 0) {
+			// already notified on the editing thread, the document lock is not needed
+			doFlushPendingChanges();
+		} else {
+			scheduleFlush(coalescingWindow);
+		}
+	}
+
+	private void scheduleFlush(int coalescingWindow) {
+		if (pendingFlush == null) {
+			pendingFlush = DID_CHANGE_FLUSHER.schedule(this::flushPendingChanges, coalescingWindow,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Sends the coalesced changes, if any, so that subsequent requests are
+	 * executed against the latest document version. For full document sync, this
+	 * is where the single text snapshot of the latest version is taken.
+	 */
+	private void flushPendingChanges() {
+		final Object documentLock = getDocumentLock();
+		try {
+			if (documentLock != null) {
+				// no edit can happen meanwhile, so the text matches the version
+				synchronized (documentLock) {
+					doFlushPendingChanges();
+				}
+			} else {
+				doFlushPendingChanges();
+			}
+		} finally {
+			releaseSubmissions();
+		}
+	}
+
+	private void doFlushPendingChanges() {
+		synchronized (pendingChangesLock) {
+			if (pendingFlush != null) {
+				pendingFlush.cancel(false);
+				pendingFlush = null;
+			}
+			if (fullTextDirty) {
+				final String text = pendingFullText != null ? pendingFullText : document.get();
+				fullTextDirty = false;
+				pendingFullText = null;
+				pendingChangeParams = null;
+				DidChangeTextDocumentParams fullTextChangeParams = new DidChangeTextDocumentParams(
+						new VersionedTextDocumentIdentifier(fileUri.toString(), version),
+						Collections.singletonList(new TextDocumentContentChangeEvent(text)));
+				sendDidChange(fullTextChangeParams);
+			}
+			if (pendingChangeParams != null) {
+				final DidChangeTextDocumentParams changeParamsToSend = pendingChangeParams;
+				pendingChangeParams = null;
+				sendDidChange(changeParamsToSend);
+			}
+		}
+	}
+
+	/**
+	 * Chains the didChange notification after the last sequenced stage. Must be
+	 * called while holding {@link #pendingChangesLock}.
+	 */
+	private void sendDidChange(DidChangeTextDocumentParams changeParamsToSend) {
+		lastChangeFuture = gatedLastChangeFuture().thenApplyAsync(ls -> {
+			ls.getTextDocumentService().didChange(changeParamsToSend);
+			return ls;
+		}, lane);
+	}
+
+	/**
+	 * @return the stage to chain the next one on, which completes once
+	 *         {@link #releaseSubmissions()} is called, so that the chained stage is
+	 *         not submitted to the lane by the current thread while it holds the
+	 *         locks. Must be called while holding {@link #pendingChangesLock}, and
+	 *         followed by {@link #releaseSubmissions()} once the locks are
+	 *         released.
+	 */
+	private CompletableFuture<LanguageServer> gatedLastChangeFuture() {
+		if (submissionGate == null) {
+			submissionGate = new CompletableFuture<>();
+			final CompletableFuture<LanguageServer> previous = lastChangeFuture;
+			return submissionGate.thenCompose(ignored -> previous);
+		}
+		// already chained after the gate
+		return lastChangeFuture;
+	}
+
+	/**
+	 * Submits the stages chained since the last call to the lane. Must be called
+	 * without holding {@link #pendingChangesLock} nor the document lock (except
+	 * from the document listener, which is notified under the document lock).
+	 */
+	private void releaseSubmissions() {
+		final CompletableFuture<Void> gate;
+		synchronized (pendingChangesLock) {
+			gate = submissionGate;
+			submissionGate = null;
+		}
+		if (gate != null) {
+			gate.complete(null);
 		}
 	}
 
@@ -206,8 +409,9 @@ final class DocumentContentSynchronizer implements IDocumentListener {
 			int length = event.getLength();
 			try {
 				// try to convert the Eclipse start/end offset to LS range.
-				Range range = new Range(LSPEclipseUtils.toPosition(offset, document),
-						LSPEclipseUtils.toPosition(offset + length, document));
+				String positionEncoding = languageServerWrapper.getPositionEncoding();
+				Range range = new Range(LSPEclipseUtils.toPosition(offset, document, positionEncoding),
+						LSPEclipseUtils.toPosition(offset + length, document, positionEncoding));
 				changeEvent.setRange(range);
 				changeEvent.setText(newText);
 				changeEvent.setRangeLength(length);
@@ -254,6 +458,26 @@ final class DocumentContentSynchronizer implements IDocumentListener {
 		return willSaveWaitUntilTimeout != 0 ? willSaveWaitUntilTimeout : defaultWillSaveWaitUntilTimeoutInSeconds;
 	}
 
+	private static final String DID_CHANGE_COALESCING_WINDOW__KEY = "didChange.coalescingWindow"; //$NON-NLS-1$
+
+	/**
+	 * Converts a language server ID to the preference ID to define the time window
+	 * (in milliseconds) during which didChange notifications are coalesced
+	 *
+	 * @return language server's preference ID to define the didChange coalescing window
+	 */
+	static @NonNull String lsToDidChangeCoalescingWindowKey(String serverId) {
+		return serverId + '.' + DID_CHANGE_COALESCING_WINDOW__KEY;
+	}
+
+	/**
+	 * @return the didChange coalescing window in milliseconds, 0 (the default)
+	 *         sends every change immediately
+	 */
+	private int lsToDidChangeCoalescingWindow() {
+		return store.getInt(lsToDidChangeCoalescingWindowKey(languageServerWrapper.serverDefinition.id));
+	}
+
 	public void documentAboutToBeSaved() {
 		if (!serverSupportsWillSaveWaitUntil()) {
 			return;
@@ -308,21 +532,30 @@ final class DocumentContentSynchronizer implements IDocumentListener {
 		}
 		TextDocumentIdentifier identifier = new TextDocumentIdentifier(fileUri.toString());
 		DidSaveTextDocumentParams params = new DidSaveTextDocumentParams(identifier, document.get());
-		lastChangeFuture.updateAndGet(f -> f.thenApplyAsync(ls -> {
-  			ls.getTextDocumentService().didSave(params);
-  			return ls;
-  		}));
+		flushPendingChanges();
+		try {
+			synchronized (pendingChangesLock) {
+				lastChangeFuture = gatedLastChangeFuture().thenApplyAsync(ls -> {
+					ls.getTextDocumentService().didSave(params);
+					languageServerWrapper.pullDiagnostics(fileUri);
+					return ls;
+				}, lane);
+			}
+		} finally {
+			releaseSubmissions();
+		}
 	}
 
 	public void documentClosed() {
 		String uri = fileUri.toString();
 		WILL_SAVE_WAIT_UNTIL_TIMEOUT_MAP.remove(uri);
+		store.removePropertyChangeListener(coalescingWindowListener);
 		// When LS is shut down all documents are being disconnected. No need to send
 		// "didClose" message to the LS that is being shut down or not yet started
 		if (languageServerWrapper.isActive()) {
 			TextDocumentIdentifier identifier = new TextDocumentIdentifier(uri);
 			DidCloseTextDocumentParams params = new DidCloseTextDocumentParams(identifier);
-			lastChangeFuture.get().thenAcceptAsync(ls -> ls.getTextDocumentService().didClose(params));
+			lastChangeFuture().thenAcceptAsync(ls -> ls.getTextDocumentService().didClose(params), lane);
 		}
 	}
 
@@ -341,6 +574,14 @@ final class DocumentContentSynchronizer implements IDocumentListener {
 		return this.document;
 	}
 
+	/**
+	 * @return the lock object edits of the document are performed with, or
+	 *         <code>null</code> if the document is not synchronized
+	 */
+	private Object getDocumentLock() {
+		return document instanceof ISynchronizable synchronizable ? synchronizable.getLockObject() : null;
+	}
+
 	int getVersion() {
 		return version;
 	}
@@ -20,6 +20,7 @@ import org.eclipse.jface.text.IDocument;
 
 final class DocumentInputStream extends InputStream {
 	private int index = 0;
+	private boolean endReached = false;
 	private final IDocument document;
 
 	DocumentInputStream(IDocument document) {
@@ -37,7 +38,22 @@ final class DocumentInputStream extends InputStream {
 				throw new IOException(e);
 			}
 		}
+		endReached = true;
 		return -1;
 	}
 
+	/**
+	 * @return the number of characters of the document read so far
+	 */
+	int getReadLength() {
+		return index;
+	}
+
+	/**
+	 * @return whether a reader tried to read past the end of the document
+	 */
+	boolean isEndReached() {
+		return endReached;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e;
+
+import java.lang.ref.SoftReference;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+/**
+ * Cache of the responses to idempotent document requests (symbols, folding,
+ * links, colors...), so that the outline, quick outline, breadcrumbs and other
+ * consumers of the same document version share a single request.
+ * <p>
+ * Entries are keyed by server, document URI, method and params, and are only
+ * valid for the document version they were requested on: they are dropped as
+ * soon as a request is made for a newer version, when the document is
+ * disconnected from the server, or when memory runs low.
+ * </p>
+ */
+public final class DocumentResponseCache {
+
+	public static final String DOCUMENT_SYMBOL = "textDocument/documentSymbol"; //$NON-NLS-1$
+	public static final String FOLDING_RANGE = "textDocument/foldingRange"; //$NON-NLS-1$
+	public static final String DOCUMENT_LINK = "textDocument/documentLink"; //$NON-NLS-1$
+	public static final String DOCUMENT_COLOR = "textDocument/documentColor"; //$NON-NLS-1$
+
+	private DocumentResponseCache() {
+		// this class shouldn't be instantiated
+	}
+
+	private record DocumentKey(@NonNull LanguageServerWrapper wrapper, @NonNull URI uri) {
+	}
+
+	private record RequestKey(@NonNull String method, @NonNull Object params) {
+	}
+
+	/**
+	 * A shared request, with the number of consumers still waiting for it
+	 */
+	private record SharedResponse(@NonNull CompletableFuture<?> request, @NonNull AtomicInteger pendingConsumers) {
+	}
+
+	/**
+	 * Responses to the requests made against one version of a document
+	 */
+	private static final class VersionedResponses {
+		final int version;
+		final Map<RequestKey, SharedResponse> responses = new ConcurrentHashMap<>();
+
+		VersionedResponses(int version) {
+			this.version = version;
+		}
+	}
+
+	private static final Map<DocumentKey, SoftReference<VersionedResponses>> cache = new ConcurrentHashMap<>();
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Returns the response to the given request for the current version of the
+	 * document, sending the request only if no response (or in-flight request) is
+	 * available yet for this version.
+	 *
+	 * @param languageServer
+	 *            the server to send the request to
+	 * @param uri
+	 *            the URI of the document the request is about
+	 * @param method
+	 *            the LSP method of the request, see constants in this class
+	 * @param params
+	 *            the request params, which must implement equals and hashCode
+	 * @param request
+	 *            sends the actual request
+	 * @return a future of the response. Cancelling it does not affect other
+	 *         consumers of the same response; the request is only cancelled
+	 *         once all its consumers cancelled their future.
+	 */
+	@SuppressWarnings("unchecked")
+	@NonNull
+	public static <T> CompletableFuture<T> getOrRequest(@NonNull LanguageServer languageServer, @NonNull URI uri,
+			@NonNull String method, @NonNull Object params,
+			@NonNull Function<LanguageServer, CompletableFuture<T>> request) {
+		final LanguageServerWrapper wrapper = LanguageServiceAccessor.getStartedWrapper(languageServer);
+		final int version = wrapper != null ? wrapper.getVersion(uri) : -1;
+		if (wrapper == null || version < 0) {
+			// not a tracked document, so we can't tell when a response becomes stale
+			misses.incrementAndGet();
+			return request.apply(languageServer);
+		}
+		final var documentKey = new DocumentKey(wrapper, uri);
+		final SoftReference<VersionedResponses> reference = cache.compute(documentKey, (key, existing) -> {
+			final VersionedResponses responses = existing != null ? existing.get() : null;
+			return responses != null && responses.version >= version ? existing
+					: new SoftReference<>(new VersionedResponses(version));
+		});
+		final VersionedResponses responses = reference.get();
+		if (responses == null || responses.version != version) {
+			// collected meanwhile, or a newer version is already cached
+			misses.incrementAndGet();
+			return request.apply(languageServer);
+		}
+		final var requestKey = new RequestKey(method, params);
+		final var created = new boolean[1];
+		final SharedResponse shared = responses.responses.compute(requestKey, (key, existing) -> {
+			if (existing != null && existing.pendingConsumers().getAndUpdate(n -> n > 0 ? n + 1 : n) > 0
+					|| existing != null && existing.request().isDone()) {
+				return existing;
+			}
+			created[0] = true;
+			return new SharedResponse(requestAfterChanges(wrapper, uri, languageServer, request),
+					new AtomicInteger(1));
+		});
+		final CompletableFuture<T> response = (CompletableFuture<T>) shared.request();
+		if (created[0]) {
+			misses.incrementAndGet();
+			// failed or cancelled requests must be retried by the next consumer
+			response.whenComplete((result, error) -> {
+				if (error != null) {
+					responses.responses.remove(requestKey, shared);
+				}
+			});
+		} else {
+			hits.incrementAndGet();
+		}
+		if (response.isDone()) {
+			return response.copy();
+		}
+		final CompletableFuture<T> consumer = response.copy();
+		consumer.whenComplete((result, error) -> {
+			if (shared.pendingConsumers().decrementAndGet() == 0 && consumer.isCancelled()) {
+				// nobody is waiting for the response anymore
+				CancellationSupport.cancel(response);
+			}
+		});
+		return consumer;
+	}
+
+	/**
+	 * Sends the request once the changes of the document up to the cached version
+	 * were sent, so that the server doesn't answer for older content: changes may
+	 * still be coalesced when the version is read.
+	 */
+	private static <T> CompletableFuture<T> requestAfterChanges(@NonNull LanguageServerWrapper wrapper,
+			@NonNull URI uri, @NonNull LanguageServer languageServer,
+			@NonNull Function<LanguageServer, CompletableFuture<T>> request) {
+		final CompletableFuture<LanguageServer> changesSent = wrapper.getLastChangeFuture(uri);
+		if (changesSent == null || changesSent.isDone()) {
+			return request.apply(languageServer);
+		}
+		return changesSent.thenCompose(ls -> request.apply(languageServer));
+	}
+
+	/**
+	 * Forgets the responses cached for the given document on the given server
+	 */
+	static void evict(@NonNull LanguageServerWrapper wrapper, @NonNull URI uri) {
+		cache.remove(new DocumentKey(wrapper, uri));
+	}
+
+	/**
+	 * Forgets all the responses cached for the given server
+	 */
+	static void evict(@NonNull LanguageServerWrapper wrapper) {
+		cache.keySet().removeIf(key -> key.wrapper() == wrapper);
+	}
+
+	/**
+	 * @return the number of requests answered from the cache
+	 */
+	public static long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of requests actually sent to a language server
+	 */
+	public static long getMissCount() {
+		return misses.get();
+	}
+
+}
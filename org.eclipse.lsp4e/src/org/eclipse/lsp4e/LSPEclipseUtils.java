@@ -37,7 +37,9 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -70,7 +72,11 @@ import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITextOperationTarget;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.RewriteSessionEditProcessor;
@@ -93,6 +99,7 @@ import org.eclipse.lsp4j.Location;
 import org.eclipse.lsp4j.LocationLink;
 import org.eclipse.lsp4j.MarkupContent;
 import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.PositionEncodingKind;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.RenameFile;
 import org.eclipse.lsp4j.ResourceOperation;
@@ -172,6 +179,81 @@ public class LSPEclipseUtils {
 		return document.getLineInformation(position.getLine()).getOffset() + position.getCharacter();
 	}
 
+	/**
+	 * Same as {@link #toPosition(int, IDocument)}, with the character counted in
+	 * the given {@link PositionEncodingKind} instead of UTF-16 code units.
+	 */
+	public static Position toPosition(int offset, IDocument document, @Nullable String positionEncoding)
+			throws BadLocationException {
+		final Position position = toPosition(offset, document);
+		if (!isUTF16(positionEncoding) && position.getCharacter() > 0) {
+			position.setCharacter(countCodeUnits(document, offset - position.getCharacter(), offset,
+					PositionEncodingKind.UTF8.equals(positionEncoding)));
+		}
+		return position;
+	}
+
+	/**
+	 * Same as {@link #toOffset(Position, IDocument)}, with the character of the
+	 * position counted in the given {@link PositionEncodingKind} instead of UTF-16
+	 * code units.
+	 */
+	public static int toOffset(Position position, IDocument document, @Nullable String positionEncoding)
+			throws BadLocationException {
+		final IRegion line = document.getLineInformation(position.getLine());
+		int codeUnits = position.getCharacter();
+		if (isUTF16(positionEncoding) || codeUnits == 0) {
+			return line.getOffset() + codeUnits;
+		}
+		final boolean utf8 = PositionEncodingKind.UTF8.equals(positionEncoding);
+		final int lineEnd = line.getOffset() + line.getLength();
+		int offset = line.getOffset();
+		while (codeUnits > 0 && offset < lineEnd) {
+			final char c = document.getChar(offset);
+			if (Character.isHighSurrogate(c) && offset + 1 < lineEnd
+					&& Character.isLowSurrogate(document.getChar(offset + 1))) {
+				codeUnits -= utf8 ? 4 : 1;
+				offset += 2;
+			} else {
+				codeUnits -= utf8 ? utf8Length(c) : 1;
+				offset++;
+			}
+		}
+		// characters beyond the end of line are handled as in UTF-16
+		return offset + Math.max(codeUnits, 0);
+	}
+
+	private static boolean isUTF16(@Nullable String positionEncoding) {
+		return positionEncoding == null || PositionEncodingKind.UTF16.equals(positionEncoding);
+	}
+
+	/**
+	 * @return the number of UTF-8 (or UTF-32) code units of the document text
+	 *         between the given offsets
+	 */
+	private static int countCodeUnits(IDocument document, int start, int end, boolean utf8)
+			throws BadLocationException {
+		int codeUnits = 0;
+		for (int offset = start; offset < end; offset++) {
+			final char c = document.getChar(offset);
+			if (Character.isHighSurrogate(c) && offset + 1 < end
+					&& Character.isLowSurrogate(document.getChar(offset + 1))) {
+				codeUnits += utf8 ? 4 : 1;
+				offset++;
+			} else {
+				codeUnits += utf8 ? utf8Length(c) : 1;
+			}
+		}
+		return codeUnits;
+	}
+
+	private static int utf8Length(char c) {
+		if (c < 0x80) {
+			return 1;
+		}
+		return c < 0x800 ? 2 : 3;
+	}
+
 	public static boolean isOffsetInRange(int offset, Range range, IDocument document) {
 		try {
 			return offset != -1 && offset >= toOffset(range.getStart(), document)
@@ -1036,36 +1118,111 @@ public class LSPEclipseUtils {
         return null;
 	}
 
+	/**
+	 * Content-types detected for a document, along with what is needed to decide
+	 * whether they are still valid: the describers only read a prefix of the
+	 * document, so changes after that prefix can't change the result. Only the
+	 * length of that prefix is kept, not a copy of the text: the changes of the
+	 * document are followed until one of them touches the prefix.
+	 */
+	private static final class DocumentContentTypes implements IDocumentListener {
+		final @NonNull List<IContentType> contentTypes;
+		final @Nullable String fileName;
+		final long bufferModificationStamp;
+		final int prefixLength;
+		final boolean readToEnd;
+		private volatile boolean prefixChanged;
+
+		DocumentContentTypes(@NonNull List<IContentType> contentTypes, @Nullable String fileName,
+				long bufferModificationStamp, int prefixLength, boolean readToEnd) {
+			this.contentTypes = contentTypes;
+			this.fileName = fileName;
+			this.bufferModificationStamp = bufferModificationStamp;
+			this.prefixLength = prefixLength;
+			this.readToEnd = readToEnd;
+		}
+
+		boolean isValidFor(@Nullable String fileName, long bufferModificationStamp) {
+			return !prefixChanged && Objects.equals(this.fileName, fileName)
+					&& this.bufferModificationStamp == bufferModificationStamp;
+		}
+
+		@Override
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			// nothing to do
+		}
+
+		@Override
+		public void documentChanged(DocumentEvent event) {
+			// a describer which read the whole document may depend on its length
+			if (readToEnd || event.getOffset() < prefixLength) {
+				prefixChanged = true;
+				event.getDocument().removeDocumentListener(this);
+			}
+		}
+	}
+
+	private static final Map<IDocument, DocumentContentTypes> DOCUMENT_CONTENT_TYPES = Collections
+			.synchronizedMap(new WeakHashMap<>());
+
+	private static long getModificationStamp(@NonNull IDocument document) {
+		return document instanceof IDocumentExtension4 documentExtension
+				? documentExtension.getModificationStamp()
+				: IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+
 	@NonNull
 	public static List<IContentType> getDocumentContentTypes(@NonNull IDocument document) {
-		final var contentTypes = new ArrayList<IContentType>();
+		ITextFileBuffer buffer = toBuffer(document);
+		long bufferModificationStamp = buffer != null ? buffer.getModificationStamp()
+				: IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		String fileName = getFileName(document);
 
-		ITextFileBufferManager bufferManager = FileBuffers.getTextFileBufferManager();
-		if (bufferManager != null) {
-			ITextFileBuffer buffer = bufferManager.getTextFileBuffer(document);
-			if (buffer != null) {
-				try {
-					// may be a more specific content-type, relying on some content-type factory and actual content (not just name)
-					IContentType contentType = buffer.getContentType();
-					if (contentType != null) {
-						contentTypes.add(contentType);
-					}
-				} catch (CoreException e) {
-					if (!(e.getCause() instanceof java.io.FileNotFoundException)) {
-						//the content type may be based on path or file name pattern or another subsystem via the ContentTypeManager
-						// so that is not an error condition
-						//otherwise, account for some other unknown CoreException
-						LanguageServerPlugin.logError("Exception occurred while fetching the content type from the buffer", e); //$NON-NLS-1$;
-					}
+		DocumentContentTypes cached = DOCUMENT_CONTENT_TYPES.get(document);
+		if (cached != null && cached.isValidFor(fileName, bufferModificationStamp)) {
+			return new ArrayList<>(cached.contentTypes);
+		}
+
+		final var contentTypes = new ArrayList<IContentType>();
+		if (buffer != null) {
+			try {
+				// may be a more specific content-type, relying on some content-type factory and actual content (not just name)
+				IContentType contentType = buffer.getContentType();
+				if (contentType != null) {
+					contentTypes.add(contentType);
+				}
+			} catch (CoreException e) {
+				if (!(e.getCause() instanceof java.io.FileNotFoundException)) {
+					//the content type may be based on path or file name pattern or another subsystem via the ContentTypeManager
+					// so that is not an error condition
+					//otherwise, account for some other unknown CoreException
+					LanguageServerPlugin.logError("Exception occurred while fetching the content type from the buffer", e); //$NON-NLS-1$;
 				}
 			}
 		}
 
-		String fileName = getFileName(document);
+		if (cached != null) {
+			document.removeDocumentListener(cached);
+			DOCUMENT_CONTENT_TYPES.remove(document);
+		}
+		long documentModificationStamp = getModificationStamp(document);
 		if (fileName != null) {
 			try (var contents = new DocumentInputStream(document)) {
 				contentTypes
 						.addAll(Arrays.asList(Platform.getContentTypeManager().findContentTypesFor(contents, fileName)));
+				// the buffer content-type is also computed from the same prefix, so the
+				// read region is a conservative validity bound for the whole result
+				int prefixLength = Math.min(contents.getReadLength(), document.getLength());
+				var detected = new DocumentContentTypes(List.copyOf(contentTypes), fileName,
+						bufferModificationStamp, prefixLength, contents.isEndReached());
+				document.addDocumentListener(detected);
+				if (documentModificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP
+						|| documentModificationStamp != getModificationStamp(document)) {
+					// modified while being read, or can't tell
+					document.removeDocumentListener(detected);
+				} else {
+					DOCUMENT_CONTENT_TYPES.put(document, detected);
+				}
 			} catch (IOException e) {
 				LanguageServerPlugin.logError(e);
 			}
@@ -23,16 +23,21 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.lsp4e.progress.LSPProgressManager;
 import org.eclipse.lsp4e.ui.Messages;
 import org.eclipse.lsp4j.ApplyWorkspaceEditParams;
 import org.eclipse.lsp4j.ApplyWorkspaceEditResponse;
 import org.eclipse.lsp4j.ConfigurationParams;
+import org.eclipse.lsp4j.Diagnostic;
 import org.eclipse.lsp4j.Location;
 import org.eclipse.lsp4j.MessageActionItem;
 import org.eclipse.lsp4j.MessageParams;
+import org.eclipse.lsp4j.PositionEncodingKind;
 import org.eclipse.lsp4j.ProgressParams;
 import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.RegistrationParams;
 import org.eclipse.lsp4j.ShowDocumentParams;
 import org.eclipse.lsp4j.ShowDocumentResult;
@@ -51,13 +56,24 @@ public class LanguageClientImpl implements LanguageClient {
 
 	private LanguageServer server;
 	private LanguageServerWrapper wrapper;
+	private DiagnosticsPuller diagnosticsPuller;
 
 	public final void connect(LanguageServer server, LanguageServerWrapper wrapper) {
 		this.server = server;
 		this.wrapper = wrapper;
+		this.diagnosticsPuller = new DiagnosticsPuller(wrapper, server, this::acceptDiagnostics);
 		progressManager.connect(server);
 	}
 
+	final DiagnosticsPuller getDiagnosticsPuller() {
+		return diagnosticsPuller;
+	}
+
+	/**
+	 * Sets the consumer of the diagnostics published or pulled from the server.
+	 * It is called asynchronously, with the other diagnostics of the same batch,
+	 * as described in {@link DiagnosticsAggregator}.
+	 */
 	protected void setDiagnosticsConsumer(@NonNull Consumer<PublishDiagnosticsParams> diagnosticConsumer) {
 		this.diagnosticConsumer = diagnosticConsumer;
 	}
@@ -89,12 +105,53 @@ public class LanguageClientImpl implements LanguageClient {
 
 	@Override
 	public final void publishDiagnostics(PublishDiagnosticsParams diagnostics) {
-		diagnosticConsumer.accept(diagnostics);
+		acceptDiagnostics(diagnostics);
+	}
+
+	@Override
+	public CompletableFuture<Void> refreshDiagnostics() {
+		return diagnosticsPuller.refresh(wrapper.getConnectedDocumentURIs());
+	}
+
+	/**
+	 * Hands diagnostics published or pulled from the server to the diagnostics
+	 * consumer
+	 */
+	private void acceptDiagnostics(PublishDiagnosticsParams diagnostics) {
+		toUTF16Positions(diagnostics);
+		DiagnosticsAggregator.INSTANCE.publish(wrapper, diagnosticConsumer, diagnostics);
+	}
+
+	/**
+	 * Converts the ranges of the diagnostics of a connected document from the
+	 * position encoding negotiated with the server to the UTF-16 code units the
+	 * diagnostics consumers expect.
+	 */
+	private void toUTF16Positions(PublishDiagnosticsParams diagnostics) {
+		final String positionEncoding = wrapper.getPositionEncoding();
+		if (PositionEncodingKind.UTF16.equals(positionEncoding) || diagnostics.getDiagnostics().isEmpty()) {
+			return;
+		}
+		final IDocument document = wrapper.getConnectedDocument(LSPEclipseUtils.toUri(diagnostics.getUri()));
+		if (document == null) {
+			return;
+		}
+		for (Diagnostic diagnostic : diagnostics.getDiagnostics()) {
+			final Range range = diagnostic.getRange();
+			try {
+				final int start = LSPEclipseUtils.toOffset(range.getStart(), document, positionEncoding);
+				final int end = LSPEclipseUtils.toOffset(range.getEnd(), document, positionEncoding);
+				diagnostic.setRange(new Range(LSPEclipseUtils.toPosition(start, document),
+						LSPEclipseUtils.toPosition(end, document)));
+			} catch (BadLocationException e) {
+				// out of date diagnostic, keep it as sent
+			}
+		}
 	}
 
 	@Override
 	public final void logMessage(MessageParams message) {
-		CompletableFuture.runAsync(() -> ServerMessageHandler.logMessage(wrapper, message));
+		CompletableFuture.runAsync(() -> ServerMessageHandler.logMessage(wrapper, message), wrapper.getLauncherExecutor());
 	}
 
 	@SuppressWarnings("null")
@@ -106,6 +163,9 @@ public class LanguageClientImpl implements LanguageClient {
 	@SuppressWarnings("null")
 	@Override
 	public void notifyProgress(final ProgressParams params) {
+		if (diagnosticsPuller != null && diagnosticsPuller.acceptPartialResult(params)) {
+			return;
+		}
 		progressManager.notifyProgress(params);
 	}
 
@@ -128,17 +188,17 @@ public class LanguageClientImpl implements LanguageClient {
 				Thread.currentThread().interrupt();
 				return new ApplyWorkspaceEditResponse(false);
 			}
-		});
+		}, wrapper.getLauncherExecutor());
 	}
 
 	@Override
 	public CompletableFuture<Void> registerCapability(RegistrationParams params) {
-		return CompletableFuture.runAsync(() -> wrapper.registerCapability(params));
+		return CompletableFuture.runAsync(() -> wrapper.registerCapability(params), wrapper.getLauncherExecutor());
 	}
 
 	@Override
 	public CompletableFuture<Void> unregisterCapability(UnregistrationParams params) {
-		return CompletableFuture.runAsync(() -> wrapper.unregisterCapability(params));
+		return CompletableFuture.runAsync(() -> wrapper.unregisterCapability(params), wrapper.getLauncherExecutor());
 	}
 
 	@Override
@@ -154,6 +214,6 @@ public class LanguageClientImpl implements LanguageClient {
 				LSPEclipseUtils.openInEditor(location);
 			});
 			return new ShowDocumentResult(true);
-		});
+		}, wrapper.getLauncherExecutor());
 	}
 }
@@ -11,6 +11,7 @@
  *******************************************************************************/
 package org.eclipse.lsp4e;
 
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
@@ -35,10 +36,12 @@ public class LanguageServerPlugin extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		LanguageServiceAccessor.addListeners(ResourcesPlugin.getWorkspace(), getPreferenceStore());
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		LanguageServiceAccessor.removeListeners(ResourcesPlugin.getWorkspace(), getPreferenceStore());
 		plugin = null;
 		super.stop(context);
 	}
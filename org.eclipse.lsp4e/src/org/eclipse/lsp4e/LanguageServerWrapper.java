@@ -28,15 +28,22 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.function.UnaryOperator;
 
 import org.eclipse.core.filebuffers.FileBuffers;
@@ -80,7 +87,10 @@ import org.eclipse.lsp4j.CompletionCapabilities;
 import org.eclipse.lsp4j.CompletionItemCapabilities;
 import org.eclipse.lsp4j.CompletionItemInsertTextModeSupportCapabilities;
 import org.eclipse.lsp4j.CompletionItemResolveSupportCapabilities;
+import org.eclipse.lsp4j.CompletionOptions;
 import org.eclipse.lsp4j.DefinitionCapabilities;
+import org.eclipse.lsp4j.DiagnosticCapabilities;
+import org.eclipse.lsp4j.DiagnosticWorkspaceCapabilities;
 import org.eclipse.lsp4j.DidChangeWorkspaceFoldersParams;
 import org.eclipse.lsp4j.DocumentFormattingOptions;
 import org.eclipse.lsp4j.DocumentHighlightCapabilities;
@@ -92,12 +102,14 @@ import org.eclipse.lsp4j.ExecuteCommandOptions;
 import org.eclipse.lsp4j.FailureHandlingKind;
 import org.eclipse.lsp4j.FoldingRangeCapabilities;
 import org.eclipse.lsp4j.FormattingCapabilities;
+import org.eclipse.lsp4j.GeneralClientCapabilities;
 import org.eclipse.lsp4j.HoverCapabilities;
 import org.eclipse.lsp4j.InitializeParams;
 import org.eclipse.lsp4j.InitializedParams;
 import org.eclipse.lsp4j.InlayHintCapabilities;
 import org.eclipse.lsp4j.InsertTextMode;
 import org.eclipse.lsp4j.MarkupKind;
+import org.eclipse.lsp4j.PositionEncodingKind;
 import org.eclipse.lsp4j.RangeFormattingCapabilities;
 import org.eclipse.lsp4j.ReferencesCapabilities;
 import org.eclipse.lsp4j.Registration;
@@ -107,6 +119,7 @@ import org.eclipse.lsp4j.ResourceOperationKind;
 import org.eclipse.lsp4j.ServerCapabilities;
 import org.eclipse.lsp4j.ShowDocumentCapabilities;
 import org.eclipse.lsp4j.SignatureHelpCapabilities;
+import org.eclipse.lsp4j.SignatureHelpOptions;
 import org.eclipse.lsp4j.SymbolCapabilities;
 import org.eclipse.lsp4j.SymbolKind;
 import org.eclipse.lsp4j.SymbolKindCapabilities;
@@ -170,6 +183,13 @@ public class LanguageServerWrapper {
 
 	};
 
+	/**
+	 * Maximum number of threads used to dispatch document synchronization and
+	 * requests of a single language server.
+	 */
+	private static final int DISPATCHER_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+	private static final int DISPATCHER_QUEUE_CAPACITY = 1024;
+
 	@NonNull
 	public final LanguageServerDefinition serverDefinition;
 	@Nullable
@@ -186,7 +206,9 @@ public class LanguageServerWrapper {
 	private LanguageServer languageServer;
 	private LanguageClientImpl languageClient;
 	private ServerCapabilities serverCapabilities;
+	private volatile String positionEncoding;
 	private Timer timer;
+	private ExecutorService launcherExecutor;
 	private AtomicBoolean stopping = new AtomicBoolean(false);
 
 	/**
@@ -196,6 +218,13 @@ public class LanguageServerWrapper {
 	private boolean initiallySupportsWorkspaceFolders = false;
 	private final @NonNull IResourceChangeListener workspaceFolderUpdater = new WorkspaceFolderListener();
 
+	/**
+	 * Pool backing the ordered per-document lanes, so that the synchronization
+	 * work of this server is isolated from the common pool. Replaced by a fresh
+	 * pool when the server is stopped.
+	 */
+	private volatile @NonNull ThreadPoolExecutor dispatcher;
+
 	/* Backwards compatible constructor */
 	public LanguageServerWrapper(@NonNull IProject project, @NonNull LanguageServerDefinition serverDefinition) {
 		this(project, serverDefinition, null);
@@ -212,6 +241,55 @@ public class LanguageServerWrapper {
 		this.initialPath = initialPath;
 		this.serverDefinition = serverDefinition;
 		this.connectedDocuments = new HashMap<>();
+		this.dispatcher = createDispatcher();
+	}
+
+	/**
+	 * Each ordered lane enqueues at most one task at a time, so the queue only
+	 * fills up under heavy load. Tasks which don't fit then overflow to the common
+	 * pool, rather than running in the submitting thread, which may be the UI
+	 * thread holding the document lock. Tasks submitted once the pool is shut down
+	 * are rejected, so that stages chained on the lanes of a stopped server
+	 * complete exceptionally.
+	 */
+	private @NonNull ThreadPoolExecutor createDispatcher() {
+		String threadNameFormat = "LS-" + serverDefinition.id + "-dispatcher-%d"; //$NON-NLS-1$ //$NON-NLS-2$
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(DISPATCHER_THREADS, DISPATCHER_THREADS, 30,
+				TimeUnit.SECONDS, new ArrayBlockingQueue<>(DISPATCHER_QUEUE_CAPACITY),
+				new ThreadFactoryBuilder().setNameFormat(threadNameFormat).setDaemon(true).build(),
+				(task, pool) -> {
+					if (pool.isShutdown()) {
+						throw new RejectedExecutionException("Language server stopped: " + serverDefinition.id); //$NON-NLS-1$
+					}
+					ForkJoinPool.commonPool().execute(task);
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * @return a new executor running the submitted tasks in order on the pool of
+	 *         this language server
+	 */
+	@NonNull
+	SerialExecutor createOrderedLane() {
+		return new SerialExecutor(dispatcher);
+	}
+
+	/**
+	 * @return the executor dispatching work related to this language server
+	 */
+	@NonNull
+	ExecutorService getDispatcher() {
+		return dispatcher;
+	}
+
+	/**
+	 * @return the number of tasks waiting for a thread of this language server's
+	 *         dispatcher pool
+	 */
+	public int getDispatcherQueueSize() {
+		return dispatcher.getQueue().size();
 	}
 
 	/**
@@ -272,9 +350,8 @@ public class LanguageServerWrapper {
 				return null;
 			}).thenApply(unused -> {
 				languageClient = serverDefinition.createLanguageClient();
-				String theardNameFormat = "LS-" + serverDefinition.id + "-launcher-%d"; //$NON-NLS-1$ //$NON-NLS-2$
-				ExecutorService executorService = Executors
-						.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat(theardNameFormat).build());
+				ExecutorService executorService = createLauncherExecutorService();
+				this.launcherExecutor = executorService;
 				initParams.setProcessId((int) ProcessHandle.current().pid());
 
 				if (rootURI != null) {
@@ -338,7 +415,9 @@ public class LanguageServerWrapper {
 						.setDocumentationFormat(Arrays.asList(MarkupKind.MARKDOWN, MarkupKind.PLAINTEXT));
 				completionItemCapabilities.setInsertTextModeSupport(new CompletionItemInsertTextModeSupportCapabilities(List.of(InsertTextMode.AsIs, InsertTextMode.AdjustIndentation)));
 				completionItemCapabilities.setResolveSupport(new CompletionItemResolveSupportCapabilities(List.of("documentation", "detail", "additionalTextEdits"))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-				textDocumentClientCapabilities.setCompletion(new CompletionCapabilities(completionItemCapabilities));
+				final var completionCapabilities = new CompletionCapabilities(completionItemCapabilities);
+				completionCapabilities.setDynamicRegistration(Boolean.TRUE);
+				textDocumentClientCapabilities.setCompletion(completionCapabilities);
 				DefinitionCapabilities definitionCapabilities = new DefinitionCapabilities();
 				definitionCapabilities.setLinkSupport(Boolean.TRUE);
 				textDocumentClientCapabilities.setDefinition(definitionCapabilities);
@@ -368,16 +447,28 @@ public class LanguageServerWrapper {
 				final var renameCapabilities = new RenameCapabilities();
 				renameCapabilities.setPrepareSupport(true);
 				textDocumentClientCapabilities.setRename(renameCapabilities);
-				textDocumentClientCapabilities.setSignatureHelp(new SignatureHelpCapabilities());
+				final var signatureHelpCapabilities = new SignatureHelpCapabilities();
+				signatureHelpCapabilities.setDynamicRegistration(Boolean.TRUE);
+				textDocumentClientCapabilities.setSignatureHelp(signatureHelpCapabilities);
 				textDocumentClientCapabilities
 						.setSynchronization(new SynchronizationCapabilities(Boolean.TRUE, Boolean.TRUE, Boolean.TRUE));
+				if (DiagnosticsPuller.isEnabled(serverDefinition.id)) {
+					final var diagnosticCapabilities = new DiagnosticCapabilities();
+					diagnosticCapabilities.setRelatedDocumentSupport(Boolean.TRUE);
+					textDocumentClientCapabilities.setDiagnostic(diagnosticCapabilities);
+					workspaceClientCapabilities.setDiagnostics(new DiagnosticWorkspaceCapabilities(Boolean.TRUE));
+				}
 
 				WindowClientCapabilities windowClientCapabilities = getWindowClientCapabilities();
-				initParams.setCapabilities(new ClientCapabilities(
+				final var clientCapabilities = new ClientCapabilities(
 						workspaceClientCapabilities,
 						textDocumentClientCapabilities,
 						windowClientCapabilities,
-						lspStreamProvider.getExperimentalFeaturesPOJO()));
+						lspStreamProvider.getExperimentalFeaturesPOJO());
+				final var generalClientCapabilities = new GeneralClientCapabilities();
+				generalClientCapabilities.setPositionEncodings(SUPPORTED_POSITION_ENCODINGS);
+				clientCapabilities.setGeneral(generalClientCapabilities);
+				initParams.setCapabilities(clientCapabilities);
 				initParams.setClientInfo(getClientInfo(name));
 				initParams.setTrace(this.lspStreamProvider.getTrace(rootURI));
 
@@ -385,7 +476,11 @@ public class LanguageServerWrapper {
 				return languageServer.initialize(initParams);
 			}).thenAccept(res -> {
 				serverCapabilities = res.getCapabilities();
+				final String negotiatedEncoding = serverCapabilities.getPositionEncoding();
+				this.positionEncoding = SUPPORTED_POSITION_ENCODINGS.contains(negotiatedEncoding) ? negotiatedEncoding
+						: PositionEncodingKind.UTF16;
 				this.initiallySupportsWorkspaceFolders = supportsWorkspaceFolders(serverCapabilities);
+				LanguageServiceAccessor.capabilitiesChanged();
 			}).thenRun(() -> {
 				this.languageServer.initialized(new InitializedParams());
 			}).thenRun(() -> {
@@ -399,6 +494,10 @@ public class LanguageServerWrapper {
 							throw new RuntimeException(e);
 						}
 					}
+					final DiagnosticsPuller diagnosticsPuller = getDiagnosticsPuller();
+					if (diagnosticsPuller != null) {
+						diagnosticsPuller.pullWorkspaceDiagnostics();
+					}
 				});
 				FileBuffers.getTextFileBufferManager().addFileBufferListener(fileBufferListener);
 			}).exceptionally(e -> {
@@ -410,6 +509,81 @@ public class LanguageServerWrapper {
 		}
 	}
 
+	/**
+	 * Position encodings offered to the servers. Only UTF-16 until every
+	 * conversion between offsets and positions (requests, responses, edits,
+	 * pulled diagnostics...) honours {@link #getPositionEncoding()}; the
+	 * synchronization and published diagnostics already do.
+	 */
+	private static final List<String> SUPPORTED_POSITION_ENCODINGS = List.of(PositionEncodingKind.UTF16);
+
+	/**
+	 * @return the {@link PositionEncodingKind} negotiated with the server, in which
+	 *         the characters of the positions exchanged with it are counted
+	 */
+	public @NonNull String getPositionEncoding() {
+		final String encoding = this.positionEncoding;
+		return encoding != null ? encoding : PositionEncodingKind.UTF16;
+	}
+
+	private static final String VIRTUAL_THREADS__KEY = "launcher.virtualThreads"; //$NON-NLS-1$
+	private static final AtomicBoolean VIRTUAL_THREADS_UNAVAILABLE_LOGGED = new AtomicBoolean();
+
+	/**
+	 * @return whether the launcher of this server should use virtual threads, as
+	 *         set in the extension point or in the preferences
+	 */
+	private boolean useVirtualThreads() {
+		return serverDefinition.useVirtualThreads || LanguageServerPlugin.getDefault().getPreferenceStore()
+				.getBoolean(serverDefinition.id + '.' + VIRTUAL_THREADS__KEY);
+	}
+
+	private ExecutorService createLauncherExecutorService() {
+		String threadNamePrefix = "LS-" + serverDefinition.id + "-launcher-"; //$NON-NLS-1$ //$NON-NLS-2$
+		if (useVirtualThreads()) {
+			ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor(threadNamePrefix);
+			if (virtualThreadExecutor != null) {
+				return virtualThreadExecutor;
+			}
+		}
+		return Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat(threadNamePrefix + "%d").build()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Virtual threads are only available from Java 21 on, whereas this bundle
+	 * targets Java 17, so they are created reflectively.
+	 *
+	 * @return an executor starting a new named virtual thread for each task, or
+	 *         null if the running JVM does not support virtual threads
+	 */
+	@Nullable
+	private static ExecutorService newVirtualThreadPerTaskExecutor(String threadNamePrefix) {
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder"); //$NON-NLS-1$
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null); //$NON-NLS-1$
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L); //$NON-NLS-1$
+			ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder); //$NON-NLS-1$
+			return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class) //$NON-NLS-1$
+					.invoke(null, threadFactory);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// the JVM does not change, warn only for the first server asking for them
+			if (!VIRTUAL_THREADS_UNAVAILABLE_LOGGED.getAndSet(true)) {
+				LanguageServerPlugin.logWarning("Virtual threads are not available, using platform threads", e); //$NON-NLS-1$
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * @return the executor running the handlers of inbound messages of this
+	 *         language server, or the common pool if the server is not started
+	 */
+	@NonNull
+	Executor getLauncherExecutor() {
+		final ExecutorService executor = this.launcherExecutor;
+		return executor != null && !executor.isShutdown() ? executor : ForkJoinPool.commonPool();
+	}
+
 	private ClientInfo getClientInfo(String name) {
 		String pluginVersion = Platform.getBundle(LanguageServerPlugin.PLUGIN_ID).getVersion().toString();
 		ClientInfo clientInfo = new ClientInfo(name, pluginVersion);
@@ -505,7 +679,14 @@ public class LanguageServerWrapper {
 		}
 
 		this.serverCapabilities = null;
+		this.positionEncoding = null;
 		this.dynamicRegistrations.clear();
+		DocumentResponseCache.evict(this);
+		final DiagnosticsPuller diagnosticsPuller = getDiagnosticsPuller();
+		if (diagnosticsPuller != null) {
+			diagnosticsPuller.dispose();
+		}
+		LanguageServiceAccessor.capabilitiesChanged();
 
 		final Future<?> serverFuture = this.launcherFuture;
 		final StreamConnectionProvider provider = this.lspStreamProvider;
@@ -542,11 +723,21 @@ public class LanguageServerWrapper {
 
 		this.launcherFuture = null;
 		this.lspStreamProvider = null;
+		final ExecutorService executor = this.launcherExecutor;
+		this.launcherExecutor = null;
+		if (executor != null) {
+			// let in-flight handlers complete, but release idle (or virtual) threads
+			executor.shutdown();
+		}
 
 		while (!this.connectedDocuments.isEmpty()) {
 			disconnect(this.connectedDocuments.keySet().iterator().next());
 		}
 		this.languageServer = null;
+		// queued tasks still complete, the threads are released afterwards
+		final ThreadPoolExecutor previousDispatcher = this.dispatcher;
+		this.dispatcher = createDispatcher();
+		previousDispatcher.shutdown();
 
 		FileBuffers.getTextFileBufferManager().removeFileBufferListener(fileBufferListener);
 	}
@@ -673,6 +864,7 @@ public class LanguageServerWrapper {
 				DocumentContentSynchronizer listener = new DocumentContentSynchronizer(this, theDocument, syncKind);
 				theDocument.addDocumentListener(listener);
 				LanguageServerWrapper.this.connectedDocuments.put(uri, listener);
+				LanguageServiceAccessor.invalidateWrappersCache();
 				return listener.lastChangeFuture();
 			}
 		}).thenApply(theVoid -> languageServer);
@@ -683,6 +875,12 @@ public class LanguageServerWrapper {
 		if (documentListener != null) {
 			documentListener.getDocument().removeDocumentListener(documentListener);
 			documentListener.documentClosed();
+			DocumentResponseCache.evict(this, uri);
+			final DiagnosticsPuller diagnosticsPuller = getDiagnosticsPuller();
+			if (diagnosticsPuller != null) {
+				diagnosticsPuller.forget(uri);
+			}
+			LanguageServiceAccessor.invalidateWrappersCache();
 		}
 		if (this.connectedDocuments.isEmpty()) {
 			if (this.serverDefinition.lastDocumentDisconnectedTimeout != 0) {
@@ -709,6 +907,52 @@ public class LanguageServerWrapper {
 		}
 	}
 
+	/**
+	 * @return the document connected to this wrapper at the given uri, or
+	 *         <code>null</code> if none
+	 */
+	@Nullable
+	IDocument getConnectedDocument(@Nullable URI uri) {
+		if (uri == null) {
+			return null;
+		}
+		final DocumentContentSynchronizer synchronizer = connectedDocuments.get(uri);
+		return synchronizer != null ? synchronizer.getDocument() : null;
+	}
+
+	/**
+	 * @return the URIs of the documents connected to this wrapper
+	 */
+	@NonNull
+	List<URI> getConnectedDocumentURIs() {
+		synchronized (connectedDocuments) {
+			return new ArrayList<>(connectedDocuments.keySet());
+		}
+	}
+
+	/**
+	 * @return the object pulling the diagnostics of the server, or
+	 *         <code>null</code> if the server isn't started. It only sends requests
+	 *         if pull diagnostics are enabled in the preferences and supported by
+	 *         the server.
+	 */
+	public @Nullable DiagnosticsPuller getDiagnosticsPuller() {
+		final LanguageClientImpl client = this.languageClient;
+		return client != null ? client.getDiagnosticsPuller() : null;
+	}
+
+	/**
+	 * Pulls the diagnostics of the given connected document, if enabled and
+	 * supported by the server
+	 */
+	void pullDiagnostics(@NonNull URI uri) {
+		final DiagnosticsPuller diagnosticsPuller = getDiagnosticsPuller();
+		// not anymore if closed before its turn on the lane came
+		if (diagnosticsPuller != null && isConnectedTo(uri)) {
+			diagnosticsPuller.pullDocumentDiagnostics(uri);
+		}
+	}
+
 	/**
 	 * checks if the wrapper is already connected to the document at the given uri
 	 *
@@ -774,6 +1018,26 @@ public class LanguageServerWrapper {
 		return allDocumentsAreUpToDate().thenApply(r -> this.languageServer);
 	}
 
+	/**
+	 * Sends a request to the language server once it is initialized and
+	 * up-to-date. Cancelling the returned future, or the given monitor, cancels
+	 * the underlying JSON-RPC request.
+	 *
+	 * @param request
+	 *            sends the request with the LSP4J service methods
+	 * @param monitor
+	 *            the monitor of the job waiting for the response, or
+	 *            <code>null</code>
+	 * @return a future of the response
+	 */
+	@NonNull
+	public <T> CompletableFuture<T> execute(@NonNull Function<LanguageServer, CompletableFuture<T>> request,
+			@Nullable IProgressMonitor monitor) {
+		final var cancellationSupport = new CancellationSupport(monitor);
+		return cancellationSupport.bind(getInitializedServer()
+				.thenCompose(server -> cancellationSupport.execute(request.apply(server))));
+	}
+
 	/**
 	 * Warning: this is a long running operation
 	 *
@@ -862,8 +1126,21 @@ public class LanguageServerWrapper {
 				final Either<Boolean, CodeActionOptions> beforeRegistration = serverCapabilities.getCodeActionProvider();
 				serverCapabilities.setCodeActionProvider(Boolean.TRUE);
 				addRegistration(reg, () -> serverCapabilities.setCodeActionProvider(beforeRegistration));
+			} else if ("textDocument/completion".equals(reg.getMethod())) { //$NON-NLS-1$
+				final CompletionOptions beforeRegistration = serverCapabilities.getCompletionProvider();
+				serverCapabilities.setCompletionProvider(reg.getRegisterOptions() instanceof JsonObject options
+						? new Gson().fromJson(options, CompletionOptions.class)
+						: new CompletionOptions());
+				addRegistration(reg, () -> serverCapabilities.setCompletionProvider(beforeRegistration));
+			} else if ("textDocument/signatureHelp".equals(reg.getMethod())) { //$NON-NLS-1$
+				final SignatureHelpOptions beforeRegistration = serverCapabilities.getSignatureHelpProvider();
+				serverCapabilities.setSignatureHelpProvider(reg.getRegisterOptions() instanceof JsonObject options
+						? new Gson().fromJson(options, SignatureHelpOptions.class)
+						: new SignatureHelpOptions());
+				addRegistration(reg, () -> serverCapabilities.setSignatureHelpProvider(beforeRegistration));
 			}
 		});
+		LanguageServiceAccessor.capabilitiesChanged();
 	}
 
 	private void addRegistration(@NonNull Registration reg, @NonNull Runnable unregistrationHandler) {
@@ -892,6 +1169,7 @@ public class LanguageServerWrapper {
 			workspace.setWorkspaceFolders(folders);
 		}
 		folders.setSupported(enable);
+		LanguageServiceAccessor.invalidateWrappersCache();
 		if (enable) {
 			watchProjects();
 		}
@@ -927,6 +1205,7 @@ public class LanguageServerWrapper {
 				unregistrator.run();
 			}
 		});
+		LanguageServiceAccessor.capabilitiesChanged();
 	}
 
 	void unregisterCommands(List<String> cmds) {
@@ -948,6 +1227,17 @@ public class LanguageServerWrapper {
 		return -1;
 	}
 
+	/**
+	 * @return a future completed once the changes made so far to the given
+	 *         document were sent to the server, including the ones still being
+	 *         coalesced, or <code>null</code> if the document isn't connected
+	 */
+	@Nullable
+	CompletableFuture<LanguageServer> getLastChangeFuture(URI uri) {
+		DocumentContentSynchronizer documentContentSynchronizer = connectedDocuments.get(uri);
+		return documentContentSynchronizer != null ? documentContentSynchronizer.lastChangeFuture() : null;
+	}
+
 	public boolean canOperate(@NonNull IDocument document) {
 		URI documentUri = LSPEclipseUtils.toUri(document);
 		if (documentUri == null) {
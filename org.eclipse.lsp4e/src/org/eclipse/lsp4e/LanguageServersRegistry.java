@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -76,6 +77,8 @@ public class LanguageServersRegistry {
 	private static final boolean DEFAULT_SINGLETON = false;
 	private static final String LAST_DOCUMENT_DISCONNECTED_TIMEOUT = "lastDocumentDisconnectedTimeout"; //$NON-NLS-1$
 	private static final int DEFAULT_LAST_DOCUMENTED_DISCONNECTED_TIEMOUT = 0;
+	private static final String VIRTUAL_THREADS_ATTRIBUTE = "virtualThreads"; //$NON-NLS-1$
+	private static final boolean DEFAULT_VIRTUAL_THREADS = false;
 	private static final String CONTENT_TYPE_ATTRIBUTE = "contentType"; //$NON-NLS-1$
 	private static final String LANGUAGE_ID_ATTRIBUTE = "languageId"; //$NON-NLS-1$
 	private static final String CLASS_ATTRIBUTE = "class"; //$NON-NLS-1$
@@ -93,13 +96,24 @@ public class LanguageServersRegistry {
 		public final @NonNull String label;
 		public final boolean isSingleton;
 		public final int lastDocumentDisconnectedTimeout;
+		/**
+		 * Whether the launcher and the client-side handlers should run on virtual
+		 * threads, when the running JVM supports them
+		 */
+		public final boolean useVirtualThreads;
 		public final @NonNull Map<IContentType, String> languageIdMappings;
 
 		LanguageServerDefinition(@NonNull String id, @NonNull String label, boolean isSingleton, int lastDocumentDisconnectedTimeout) {
+			this(id, label, isSingleton, lastDocumentDisconnectedTimeout, DEFAULT_VIRTUAL_THREADS);
+		}
+
+		LanguageServerDefinition(@NonNull String id, @NonNull String label, boolean isSingleton,
+				int lastDocumentDisconnectedTimeout, boolean useVirtualThreads) {
 			this.id = id;
 			this.label = label;
 			this.isSingleton = isSingleton;
 			this.lastDocumentDisconnectedTimeout = lastDocumentDisconnectedTimeout;
+			this.useVirtualThreads = useVirtualThreads;
 			this.languageIdMappings = new ConcurrentHashMap<>();
 		}
 
@@ -150,8 +164,13 @@ public class LanguageServersRegistry {
 			return lastDocumentisconnectedTiemoutAttribute == null ? DEFAULT_LAST_DOCUMENTED_DISCONNECTED_TIEMOUT : Integer.parseInt(lastDocumentisconnectedTiemoutAttribute);
 		}
 
+		private static boolean getUseVirtualThreads(IConfigurationElement element) {
+			return Boolean.parseBoolean(element.getAttribute(VIRTUAL_THREADS_ATTRIBUTE));
+		}
+
 		public ExtensionLanguageServerDefinition(@NonNull IConfigurationElement element) {
-			super(element.getAttribute(ID_ATTRIBUTE), element.getAttribute(LABEL_ATTRIBUTE), getIsSingleton(element), getLastDocumentDisconnectedTimeout(element));
+			super(element.getAttribute(ID_ATTRIBUTE), element.getAttribute(LABEL_ATTRIBUTE), getIsSingleton(element),
+					getLastDocumentDisconnectedTimeout(element), getUseVirtualThreads(element));
 			this.extension = element;
 		}
 
@@ -252,9 +271,73 @@ public class LanguageServersRegistry {
 	private final List<ContentTypeToLanguageServerDefinition> connections = new ArrayList<>();
 	private final IPreferenceStore preferenceStore;
 
+	/**
+	 * Immutable snapshot of the enabled definitions for each content-type,
+	 * rebuilt as a whole whenever the mappings or their enablement change, so
+	 * that lookups don't need to scan the mappings nor to lock.
+	 */
+	private static final class AvailableLSIndex {
+		/**
+		 * Definitions enabled for a content-type and its base types
+		 */
+		final @NonNull Map<IContentType, Set<LanguageServerDefinition>> byContentType;
+		/**
+		 * Definitions directly enabled for a content-type, used for content-types
+		 * registered after the index was built
+		 */
+		final @NonNull Map<IContentType, Set<LanguageServerDefinition>> direct;
+		/**
+		 * Mappings with an enabledWhen expression, which must be evaluated on each
+		 * lookup
+		 */
+		final @NonNull List<ContentTypeToLanguageServerDefinition> dynamicallyEnabled;
+
+		AvailableLSIndex(@NonNull Map<IContentType, Set<LanguageServerDefinition>> byContentType,
+				@NonNull Map<IContentType, Set<LanguageServerDefinition>> direct,
+				@NonNull List<ContentTypeToLanguageServerDefinition> dynamicallyEnabled) {
+			this.byContentType = byContentType;
+			this.direct = direct;
+			this.dynamicallyEnabled = dynamicallyEnabled;
+		}
+
+		Set<LanguageServerDefinition> get(IContentType contentType) {
+			Set<LanguageServerDefinition> res = byContentType.get(contentType);
+			if (res != null) {
+				return res;
+			}
+			res = new HashSet<>();
+			for (IContentType current = contentType; current != null; current = current.getBaseType()) {
+				res.addAll(direct.getOrDefault(current, Collections.emptySet()));
+			}
+			return res;
+		}
+	}
+
+	private volatile AvailableLSIndex availableLSIndex;
+
 	private LanguageServersRegistry() {
 		this.preferenceStore = LanguageServerPlugin.getDefault().getPreferenceStore();
 		initialize();
+		// user enablement of the mappings is stored in the preferences
+		this.preferenceStore.addPropertyChangeListener(event -> {
+			if (isMappingEnablementKey(event.getProperty())) {
+				rebuildAvailableLSIndex();
+			}
+		});
+	}
+
+	/**
+	 * @return whether the given preference stores the user enablement of one of
+	 *         the mappings, the only preferences the available servers index
+	 *         depends on
+	 */
+	private synchronized boolean isMappingEnablementKey(String key) {
+		for (ContentTypeToLanguageServerDefinition mapping : this.connections) {
+			if (mapping.getValue() != null && mapping.getPreferencesKey().equals(key)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	private void initialize() {
@@ -312,6 +395,33 @@ public class LanguageServersRegistry {
 				LanguageServerPlugin.logWarning("server '" + mapping.id + "' not available", null); //$NON-NLS-1$ //$NON-NLS-2$
 			}
 		}
+		rebuildAvailableLSIndex();
+	}
+
+	private synchronized void rebuildAvailableLSIndex() {
+		final var direct = new HashMap<IContentType, Set<LanguageServerDefinition>>();
+		final var dynamicallyEnabled = new ArrayList<ContentTypeToLanguageServerDefinition>();
+		for (ContentTypeToLanguageServerDefinition mapping : List.copyOf(this.connections)) {
+			if (mapping.getValue() == null) {
+				continue;
+			} else if (mapping.getEnablementCondition() != null) {
+				dynamicallyEnabled.add(mapping);
+			} else if (mapping.isUserEnabled()) {
+				direct.computeIfAbsent(mapping.getKey(), contentType -> new HashSet<>()).add(mapping.getValue());
+			}
+		}
+		final var byContentType = new HashMap<IContentType, Set<LanguageServerDefinition>>();
+		for (IContentType contentType : Platform.getContentTypeManager().getAllContentTypes()) {
+			final var definitions = new HashSet<LanguageServerDefinition>();
+			for (IContentType current = contentType; current != null; current = current.getBaseType()) {
+				definitions.addAll(direct.getOrDefault(current, Collections.emptySet()));
+			}
+			byContentType.put(contentType, Set.copyOf(definitions));
+		}
+		direct.replaceAll((contentType, definitions) -> Set.copyOf(definitions));
+		this.availableLSIndex = new AvailableLSIndex(Map.copyOf(byContentType), Map.copyOf(direct),
+				List.copyOf(dynamicallyEnabled));
+		LanguageServiceAccessor.invalidateWrappersCache();
 	}
 
 	private IEvaluationContext evaluationContext() {
@@ -366,6 +476,7 @@ public class LanguageServersRegistry {
 				launchMode);
 		connections.add(mapping);
 		persistContentTypeToLaunchConfigurationMapping();
+		rebuildAvailableLSIndex();
 	}
 
 	public void registerAssociation(@NonNull IContentType contentType,
@@ -376,12 +487,17 @@ public class LanguageServersRegistry {
 		}
 
 		connections.add(new ContentTypeToLanguageServerDefinition(contentType, serverDefinition, enablement));
+		if (this.availableLSIndex != null) {
+			// the index is built once at the end of the initialization
+			rebuildAvailableLSIndex();
+		}
 	}
 
 	public void setAssociations(List<ContentTypeToLSPLaunchConfigEntry> wc) {
 		this.connections.removeIf(ContentTypeToLSPLaunchConfigEntry.class::isInstance);
 		this.connections.addAll(wc);
 		persistContentTypeToLaunchConfigurationMapping();
+		rebuildAvailableLSIndex();
 	}
 
 	public List<ContentTypeToLSPLaunchConfigEntry> getContentTypeToLSPLaunches() {
@@ -465,23 +581,24 @@ public class LanguageServersRegistry {
 	 * @return definitions that can support the following content-types
 	 */
 	private Set<LanguageServerDefinition> getAvailableLSFor(Collection<IContentType> contentTypes) {
+		final AvailableLSIndex index = this.availableLSIndex;
+		if (index == null) {
+			// only reachable while the registry is being initialized, no mapping is
+			// available yet
+			return Collections.emptySet();
+		}
+		if (contentTypes.size() == 1 && index.dynamicallyEnabled.isEmpty()) {
+			return index.get(contentTypes.iterator().next());
+		}
 		Set<LanguageServerDefinition> res = new HashSet<>();
-		contentTypes = expandToSuperTypes(contentTypes);
-		for (ContentTypeToLanguageServerDefinition mapping : this.connections) {
-			if (mapping.isEnabled() && contentTypes.contains(mapping.getKey())) {
-				res.add(mapping.getValue());
-			}
+		for (IContentType contentType : contentTypes) {
+			res.addAll(index.get(contentType));
 		}
-		return res;
-	}
-
-	private Collection<IContentType> expandToSuperTypes(Collection<IContentType> contentTypes) {
-		ArrayList<IContentType> res = new ArrayList<>(contentTypes);
-		for (int i = 0; i < res.size(); i++) {
-			IContentType current = res.get(i);
-			IContentType base = current.getBaseType();
-			if (base != null && !res.contains(base)) {
-				res.add(base);
+		for (ContentTypeToLanguageServerDefinition mapping : index.dynamicallyEnabled) {
+			if (!res.contains(mapping.getValue())
+					&& contentTypes.stream().anyMatch(contentType -> contentType.isKindOf(mapping.getKey()))
+					&& mapping.isEnabled()) {
+				res.add(mapping.getValue());
 			}
 		}
 		return res;
@@ -28,20 +28,29 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.content.IContentDescription;
 import org.eclipse.core.runtime.content.IContentType;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.lsp4e.LanguageServersRegistry.LanguageServerDefinition;
 import org.eclipse.lsp4e.server.StreamConnectionProvider;
 import org.eclipse.lsp4j.ServerCapabilities;
@@ -65,6 +74,50 @@ public class LanguageServiceAccessor {
 	private static final Set<LanguageServerWrapper> startedServers = new CopyOnWriteArraySet<>();
 	private static final Map<StreamConnectionProvider, LanguageServerDefinition> providersToLSDefinitions = new HashMap<>();
 
+	/**
+	 * Key of {@link #documentWrappersCache}: the wrappers matching a document only
+	 * depend on its URI and detected content-types, as long as the registry and
+	 * the started servers do not change.
+	 */
+	private record DocumentWrappersKey(@NonNull URI uri, @NonNull List<IContentType> contentTypes) {
+	}
+
+	private static final Map<DocumentWrappersKey, Collection<LanguageServerWrapper>> documentWrappersCache = new ConcurrentHashMap<>();
+	/**
+	 * Incremented on each invalidation, so that a lookup racing with an
+	 * invalidation does not populate the cache with a stale result.
+	 */
+	private static final AtomicLong documentWrappersCacheGeneration = new AtomicLong();
+	/**
+	 * Incremented each time a language server gets initialized, stopped or
+	 * changes its capabilities dynamically.
+	 */
+	private static final AtomicLong capabilitiesGeneration = new AtomicLong();
+
+	private static final IResourceChangeListener projectOpenCloseListener = new ProjectOpenCloseListener();
+	// user enablement of content-type mappings is stored in preferences
+	private static final IPropertyChangeListener preferencesListener = event -> invalidateWrappersCache();
+
+	/**
+	 * Starts invalidating the cached wrappers of documents on project and
+	 * preference changes. Called when the plug-in starts.
+	 */
+	static void addListeners(@NonNull IWorkspace workspace, @NonNull IPreferenceStore preferenceStore) {
+		workspace.addResourceChangeListener(projectOpenCloseListener,
+				IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+		preferenceStore.addPropertyChangeListener(preferencesListener);
+	}
+
+	/**
+	 * Stops the listeners added by {@link #addListeners(IWorkspace, IPreferenceStore)}.
+	 * Called when the plug-in stops.
+	 */
+	static void removeListeners(@NonNull IWorkspace workspace, @NonNull IPreferenceStore preferenceStore) {
+		workspace.removeResourceChangeListener(projectOpenCloseListener);
+		preferenceStore.removePropertyChangeListener(preferencesListener);
+		invalidateWrappersCache();
+	}
+
 	/**
 	 * This is meant for test code to clear state that might have leaked from other
 	 * tests. It isn't meant to be used in production code.
@@ -74,6 +127,62 @@ public class LanguageServiceAccessor {
 			server.stop();
 			return true;
 		});
+		invalidateWrappersCache();
+	}
+
+	/**
+	 * Forgets the wrappers previously matched to documents. To be called whenever
+	 * the registry, the enablement of a mapping or the state of a wrapper
+	 * (started, stopped, connected documents, capabilities) changes.
+	 */
+	static void invalidateWrappersCache() {
+		documentWrappersCacheGeneration.incrementAndGet();
+		documentWrappersCache.clear();
+	}
+
+	/**
+	 * To be called when a language server gets initialized, stopped or changes its
+	 * capabilities dynamically.
+	 */
+	static void capabilitiesChanged() {
+		capabilitiesGeneration.incrementAndGet();
+		invalidateWrappersCache();
+	}
+
+	/**
+	 * @return a number which changes each time a language server gets
+	 *         initialized, stopped or changes its capabilities dynamically, so
+	 *         that values derived from the capabilities of the language servers
+	 *         can be cached until it changes.
+	 */
+	public static long getCapabilitiesGeneration() {
+		return capabilitiesGeneration.get();
+	}
+
+	/**
+	 * Invalidates the wrappers cache when a project is opened, closed or deleted,
+	 * as it changes which wrappers can operate on a document.
+	 */
+	private static final class ProjectOpenCloseListener implements IResourceChangeListener {
+		@Override
+		public void resourceChanged(IResourceChangeEvent event) {
+			if (event.getType() != IResourceChangeEvent.POST_CHANGE) {
+				invalidateWrappersCache();
+				return;
+			}
+			final IResourceDelta delta = event.getDelta();
+			if (delta == null) {
+				return;
+			}
+			for (IResourceDelta projectDelta : delta.getAffectedChildren()) {
+				if (projectDelta.getResource().getType() == IResource.PROJECT
+						&& (projectDelta.getKind() != IResourceDelta.CHANGED
+								|| (projectDelta.getFlags() & IResourceDelta.OPEN) != 0)) {
+					invalidateWrappersCache();
+					return;
+				}
+			}
+		}
 	}
 
 	/**
@@ -159,6 +268,19 @@ public class LanguageServiceAccessor {
 		}
 	}
 
+	/**
+	 * @return the started wrapper of the given server, or null if none
+	 */
+	@Nullable
+	static LanguageServerWrapper getStartedWrapper(@NonNull LanguageServer server) {
+		for (LanguageServerWrapper wrapper : startedServers) {
+			if (wrapper.isWrapperFor(server)) {
+				return wrapper;
+			}
+		}
+		return null;
+	}
+
 	public static boolean isStillRunning(LanguageServer server) {
 		return startedServers.stream().anyMatch(wrapper -> wrapper.isWrapperFor(server) && wrapper.isActive());
 	}
@@ -335,6 +457,27 @@ public class LanguageServiceAccessor {
 			return Collections.emptyList();
 		}
 
+		final var directContentTypes = LSPEclipseUtils.getDocumentContentTypes(document);
+		final var cacheKey = new DocumentWrappersKey(uri, directContentTypes);
+		final Collection<LanguageServerWrapper> cached = documentWrappersCache.get(cacheKey);
+		if (cached != null) {
+			return cached;
+		}
+		final long generation = documentWrappersCacheGeneration.get();
+		final var dynamicEnablement = new boolean[1];
+		final Collection<LanguageServerWrapper> res = Collections
+				.unmodifiableCollection(getLSWrappers(document, uri, directContentTypes, dynamicEnablement));
+		// results depending on enabledWhen expressions can change at any time
+		if (!dynamicEnablement[0] && generation == documentWrappersCacheGeneration.get()) {
+			documentWrappersCache.put(cacheKey, res);
+		}
+		return res;
+	}
+
+	@NonNull
+	private static Collection<LanguageServerWrapper> getLSWrappers(@NonNull final IDocument document,
+			@NonNull final URI uri, @NonNull final List<IContentType> directContentTypes,
+			final boolean[] dynamicEnablement) {
 		final var lsRegistry = LanguageServersRegistry.getInstance();
 
 		// look for already started compatible servers suitable for the given document
@@ -352,7 +495,6 @@ public class LanguageServiceAccessor {
 				.collect(Collectors.toCollection(LinkedHashSet::new));
 
 		// look for running language servers via content-type
-		final var directContentTypes = LSPEclipseUtils.getDocumentContentTypes(document);
 		final var contentTypesToProcess = new ArrayDeque<IContentType>(directContentTypes);
 		final var processedContentTypes = new HashSet<IContentType>(directContentTypes.size());
 		final var path = new Path(uri.getPath());
@@ -365,6 +507,9 @@ public class LanguageServiceAccessor {
 			}
 
 			for (final ContentTypeToLanguageServerDefinition mapping : lsRegistry.findProviderFor(contentType)) {
+				if (mapping.getEnablementCondition() != null) {
+					dynamicEnablement[0] = true;
+				}
 				if (!mapping.isEnabled()) {
 					continue;
 				}
@@ -392,6 +537,7 @@ public class LanguageServiceAccessor {
 							? new LanguageServerWrapper(fileProject, serverDefinition)
 							: new LanguageServerWrapper(serverDefinition, path);
 					startedServers.add(wrapper);
+					invalidateWrappersCache();
 					res.add(wrapper);
 				}
 			}
@@ -461,6 +607,7 @@ public class LanguageServiceAccessor {
 			wrapper.start();
 
 			startedServers.add(wrapper);
+			invalidateWrappersCache();
 			return wrapper;
 		}
 	}
@@ -470,6 +617,7 @@ public class LanguageServiceAccessor {
 			LanguageServerWrapper wrapper = startedServers.stream().filter(w -> w.serverDefinition == serverDefinition).findFirst().orElseGet(() -> {
 				LanguageServerWrapper w = new LanguageServerWrapper(serverDefinition, null);
 				startedServers.add(w);
+				invalidateWrappersCache();
 				return w;
 			});
 			if (!wrapper.isActive()) {
@@ -500,6 +648,7 @@ public class LanguageServiceAccessor {
 			final var wrapper = new LanguageServerWrapper(serverDefinition, initialPath);
 			wrapper.start();
 			startedServers.add(wrapper);
+			invalidateWrappersCache();
 			return wrapper;
 		}
 	}
@@ -631,7 +780,7 @@ public class LanguageServiceAccessor {
 							}
 						}
 						return CompletableFuture.completedFuture(null);
-					}).thenAccept(server -> {
+					}, wrapper.getDispatcher()).thenAccept(server -> {
 						if (server != null) {
 							res.add(server);
 						}
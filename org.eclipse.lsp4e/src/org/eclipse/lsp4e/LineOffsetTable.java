@@ -0,0 +1,401 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.ISynchronizable;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+
+/**
+ * An immutable snapshot of the line start offsets of a text, to convert LSP
+ * positions and ranges to offsets (and back) without querying the document for
+ * every endpoint, and consistently even if the document changes meanwhile.
+ * <p>
+ * Snapshots of documents are shared as long as the document isn't modified.
+ * Snapshots can also be computed from the raw content of files that aren't
+ * opened, without loading them in a document; those of workspace files are
+ * shared as long as the file isn't modified.
+ * </p>
+ */
+public final class LineOffsetTable {
+
+	private static final Map<IDocument, LineOffsetTable> DOCUMENT_TABLES = Collections
+			.synchronizedMap(new WeakHashMap<>());
+
+	private static final int MAX_CACHED_FILE_TABLES = 1000;
+	private static final Map<IPath, LineOffsetTable> FILE_TABLES = Collections
+			.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<IPath, LineOffsetTable> eldest) {
+					return size() > MAX_CACHED_FILE_TABLES;
+				}
+			});
+
+	/**
+	 * Size of the chunks in which file contents are read, so that the whole
+	 * content is never held in memory
+	 */
+	private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+	private final int[] lineOffsets;
+	private final int numberOfLines;
+	private final int length;
+	private final long modificationStamp;
+
+	private LineOffsetTable(int[] lineOffsets, int numberOfLines, int length, long modificationStamp) {
+		this.lineOffsets = lineOffsets;
+		this.numberOfLines = numberOfLines;
+		this.length = length;
+		this.modificationStamp = modificationStamp;
+	}
+
+	/**
+	 * @return the line offsets of the current content of the given document
+	 */
+	public static @NonNull LineOffsetTable of(@NonNull IDocument document) {
+		final long stamp = document instanceof IDocumentExtension4 documentExtension
+				? documentExtension.getModificationStamp()
+				: IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		if (stamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP) {
+			final LineOffsetTable table = DOCUMENT_TABLES.get(document);
+			if (table != null && table.modificationStamp == stamp) {
+				return table;
+			}
+		}
+		final Object lock = document instanceof ISynchronizable synchronizable ? synchronizable.getLockObject()
+				: null;
+		final LineOffsetTable table;
+		if (lock != null) {
+			synchronized (lock) {
+				table = snapshot(document);
+			}
+		} else {
+			table = snapshot(document);
+		}
+		if (table.modificationStamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP) {
+			DOCUMENT_TABLES.put(document, table);
+		}
+		return table;
+	}
+
+	private static @NonNull LineOffsetTable snapshot(@NonNull IDocument document) {
+		final long stamp = document instanceof IDocumentExtension4 documentExtension
+				? documentExtension.getModificationStamp()
+				: IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		final int numberOfLines = document.getNumberOfLines();
+		final var lineOffsets = new int[numberOfLines];
+		try {
+			for (int line = 1; line < numberOfLines; line++) {
+				lineOffsets[line] = document.getLineOffset(line);
+			}
+		} catch (BadLocationException e) {
+			// document modified concurrently without lock, don't reuse this snapshot
+			LanguageServerPlugin.logError(e);
+			return new LineOffsetTable(lineOffsets, numberOfLines, document.getLength(),
+					IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP);
+		}
+		return new LineOffsetTable(lineOffsets, numberOfLines, document.getLength(), stamp);
+	}
+
+	/**
+	 * Computes the line offsets of a file straight from its content, without
+	 * creating a document for it. Useful for files which aren't opened.
+	 *
+	 * @param file
+	 *            a file
+	 * @return the line offsets of the current content of the file, as a document
+	 *         holding that content would compute them
+	 * @throws CoreException
+	 *             if the file can't be read
+	 */
+	public static @NonNull LineOffsetTable of(@NonNull IFile file) throws CoreException {
+		final long stamp = file.getModificationStamp();
+		final IPath path = file.getFullPath();
+		if (stamp != IResource.NULL_STAMP) {
+			final LineOffsetTable table = FILE_TABLES.get(path);
+			if (table != null && table.modificationStamp == stamp) {
+				return table;
+			}
+		}
+		final Charset charset = Charset.forName(file.getCharset());
+		LineOffsetTable table;
+		try (InputStream contents = file.getContents(true)) {
+			table = of(contents, charset);
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR, LanguageServerPlugin.PLUGIN_ID, e.getMessage(), e));
+		}
+		table = new LineOffsetTable(table.lineOffsets, table.numberOfLines, table.length, stamp);
+		if (stamp != IResource.NULL_STAMP) {
+			FILE_TABLES.put(path, table);
+		}
+		return table;
+	}
+
+	/**
+	 * @param content
+	 *            the raw content of a file
+	 * @param charset
+	 *            the charset of the file
+	 * @return the line offsets of the text encoded in the given content, as a
+	 *         document holding that text would compute them
+	 */
+	public static @NonNull LineOffsetTable of(byte @NonNull [] content, @NonNull Charset charset) {
+		return of(ByteBuffer.wrap(content), charset);
+	}
+
+	/**
+	 * @param content
+	 *            the raw content of a file, read from its current position to its
+	 *            limit
+	 * @param charset
+	 *            the charset of the file
+	 * @return the line offsets of the text encoded in the given content, as a
+	 *         document holding that text would compute them
+	 */
+	public static @NonNull LineOffsetTable of(@NonNull ByteBuffer content, @NonNull Charset charset) {
+		final var scanner = new Scanner();
+		if (isUtf8(charset)) {
+			scanner.scanUtf8(skipByteOrderMark(content.duplicate()));
+		} else {
+			scanner.scan(charset.decode(content.duplicate()));
+		}
+		return scanner.toTable();
+	}
+
+	/**
+	 * Reads the given stream in chunks, without holding the whole content in
+	 * memory.
+	 */
+	private static @NonNull LineOffsetTable of(@NonNull InputStream content, @NonNull Charset charset)
+			throws IOException {
+		final var scanner = new Scanner();
+		if (isUtf8(charset)) {
+			final var buffer = new byte[READ_BUFFER_SIZE];
+			boolean first = true;
+			int read;
+			while ((read = content.readNBytes(buffer, 0, buffer.length)) > 0) {
+				final ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+				scanner.scanUtf8(first ? skipByteOrderMark(bytes) : bytes);
+				first = false;
+			}
+		} else {
+			final var reader = new InputStreamReader(content, charset);
+			final var buffer = new char[READ_BUFFER_SIZE];
+			int read;
+			while ((read = reader.read(buffer)) >= 0) {
+				scanner.scan(CharBuffer.wrap(buffer, 0, read));
+			}
+		}
+		return scanner.toTable();
+	}
+
+	private static boolean isUtf8(@NonNull Charset charset) {
+		return StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset);
+	}
+
+	private static @NonNull ByteBuffer skipByteOrderMark(@NonNull ByteBuffer bytes) {
+		if (bytes.remaining() >= 3 && bytes.get(bytes.position()) == (byte) 0xEF
+				&& bytes.get(bytes.position() + 1) == (byte) 0xBB && bytes.get(bytes.position() + 2) == (byte) 0xBF) {
+			// byte order mark isn't part of the document
+			bytes.position(bytes.position() + 3);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Computes line offsets incrementally, so that a text can be scanned in
+	 * chunks.
+	 */
+	private static final class Scanner {
+		private int[] lineOffsets = new int[64];
+		private int numberOfLines = 1;
+		private int offset;
+		private boolean afterCR;
+
+		/**
+		 * Scans UTF-8 bytes directly, counting UTF-16 chars as a decoded document
+		 * would, without decoding the content.
+		 */
+		void scanUtf8(@NonNull ByteBuffer bytes) {
+			while (bytes.hasRemaining()) {
+				final byte b = bytes.get();
+				if ((b & 0xC0) == 0x80) {
+					// continuation byte of a multi-byte sequence
+					continue;
+				}
+				accept(b);
+				// 4-byte sequences are encoded as surrogate pairs in UTF-16
+				offset += (b & 0xF8) == 0xF0 ? 2 : 1;
+			}
+		}
+
+		void scan(@NonNull CharBuffer chars) {
+			final int limit = chars.limit();
+			for (int i = chars.position(); i < limit; i++) {
+				accept(chars.get(i));
+				offset++;
+			}
+		}
+
+		private void accept(int c) {
+			if (c == '\n' && afterCR) {
+				// second char of a \r\n delimiter
+				lineOffsets[numberOfLines - 1] = offset + 1;
+			} else if (c == '\n' || c == '\r') {
+				if (numberOfLines == lineOffsets.length) {
+					lineOffsets = Arrays.copyOf(lineOffsets, numberOfLines * 2);
+				}
+				lineOffsets[numberOfLines++] = offset + 1;
+			}
+			afterCR = c == '\r';
+		}
+
+		@NonNull LineOffsetTable toTable() {
+			return new LineOffsetTable(lineOffsets, numberOfLines, offset,
+					IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP);
+		}
+	}
+
+	/**
+	 * @return the length of the text
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * @return the number of lines of the text, see
+	 *         {@link IDocument#getNumberOfLines()}
+	 */
+	public int getNumberOfLines() {
+		return numberOfLines;
+	}
+
+	/**
+	 * @return the offset of the start of the given line, see
+	 *         {@link IDocument#getLineOffset(int)}
+	 */
+	public int getLineOffset(int line) throws BadLocationException {
+		if (line < 0 || line > numberOfLines) {
+			throw new BadLocationException();
+		}
+		return line == numberOfLines ? length : lineOffsets[line];
+	}
+
+	/**
+	 * @return the line of the given offset, see
+	 *         {@link IDocument#getLineOfOffset(int)}
+	 */
+	public int getLineOfOffset(int offset) throws BadLocationException {
+		if (offset < 0 || offset > length) {
+			throw new BadLocationException();
+		}
+		int low = 0;
+		int high = numberOfLines - 1;
+		while (low < high) {
+			final int middle = (low + high + 1) >>> 1;
+			if (lineOffsets[middle] <= offset) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Same as {@link LSPEclipseUtils#toOffset(Position, IDocument)} on the
+	 * snapshot text
+	 */
+	public int toOffset(@NonNull Position position) throws BadLocationException {
+		return getLineOffset(position.getLine()) + position.getCharacter();
+	}
+
+	/**
+	 * Same as {@link LSPEclipseUtils#toPosition(int, IDocument)} on the snapshot
+	 * text
+	 */
+	public @NonNull Position toPosition(int offset) throws BadLocationException {
+		final int line = getLineOfOffset(offset);
+		return new Position(line, offset - lineOffsets[line]);
+	}
+
+	/**
+	 * Converts the ranges of the given elements to offsets, without allocating.
+	 *
+	 * @param elements
+	 *            the elements having a range, e.g. diagnostics
+	 * @param getRange
+	 *            returns the range of an element
+	 * @param offsets
+	 *            receives the start and end offsets of the range of the element at
+	 *            index <code>i</code> at indexes <code>2 * i</code> and
+	 *            <code>2 * i + 1</code>, or <code>-1</code> for ranges that don't
+	 *            fit in the text. Must be at least twice as long as the elements.
+	 * @return the number of ranges that could be converted
+	 */
+	public <T> int toOffsets(@NonNull List<T> elements, @NonNull Function<? super T, Range> getRange,
+			int @NonNull [] offsets) {
+		int converted = 0;
+		final int size = elements.size();
+		for (int i = 0; i < size; i++) {
+			final Range range = getRange.apply(elements.get(i));
+			final int start = range != null ? toOffsetOrMinusOne(range.getStart()) : -1;
+			final int end = start >= 0 ? toOffsetOrMinusOne(range.getEnd()) : -1;
+			if (end >= 0) {
+				offsets[2 * i] = start;
+				offsets[2 * i + 1] = end;
+				converted++;
+			} else {
+				offsets[2 * i] = -1;
+				offsets[2 * i + 1] = -1;
+			}
+		}
+		return converted;
+	}
+
+	private int toOffsetOrMinusOne(Position position) {
+		if (position == null) {
+			return -1;
+		}
+		final int line = position.getLine();
+		if (line < 0 || line > numberOfLines) {
+			return -1;
+		}
+		return (line == numberOfLines ? length : lineOffsets[line]) + position.getCharacter();
+	}
+
+}
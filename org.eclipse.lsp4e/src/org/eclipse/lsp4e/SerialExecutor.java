@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+/**
+ * An executor running the submitted tasks one at a time, in submission order,
+ * on a shared delegate executor. Used as an ordered lane per document on top of
+ * the pool of a {@link LanguageServerWrapper}.
+ * <p>
+ * The delegate must not run tasks in the calling thread, as it's called while
+ * holding the lock of the lane. A task rejected by the delegate (e.g. once it's
+ * shut down) is rejected by the lane too. Tasks already accepted by the lane
+ * when the delegate starts rejecting them still run, in the thread of the
+ * delegate which ran the previous task of the lane.
+ */
+public final class SerialExecutor implements Executor {
+
+	private final @NonNull Executor delegate;
+	private final Queue<Runnable> tasks = new ArrayDeque<>();
+	private Runnable active;
+
+	public SerialExecutor(@NonNull Executor delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public synchronized void execute(Runnable task) {
+		tasks.add(() -> {
+			try {
+				task.run();
+			} finally {
+				scheduleNext();
+			}
+		});
+		if (active != null) {
+			return;
+		}
+		active = tasks.poll();
+		try {
+			delegate.execute(active);
+		} catch (RejectedExecutionException e) {
+			// the lane was idle, so the rejected task is the only one
+			active = null;
+			throw e;
+		}
+	}
+
+	private void scheduleNext() {
+		final Runnable next;
+		synchronized (this) {
+			next = active = tasks.poll();
+			if (next == null) {
+				return;
+			}
+			try {
+				delegate.execute(next);
+				return;
+			} catch (RejectedExecutionException e) {
+				// accepted before the delegate was shut down, complete it below
+			}
+		}
+		next.run();
+	}
+
+	/**
+	 * @return the number of tasks waiting for their turn on this lane
+	 */
+	public synchronized int getPendingTaskCount() {
+		return tasks.size();
+	}
+}
@@ -72,8 +72,7 @@ public class CodeActionMarkerResolution extends WorkbenchMarkerResolution implem
 		}
 		return Arrays.stream(markers).filter(marker -> {
 			try {
-				return codeAction.getDiagnostics()
-						.contains(marker.getAttribute(LSPDiagnosticsToMarkers.LSP_DIAGNOSTIC));
+				return codeAction.getDiagnostics().contains(LSPDiagnosticsToMarkers.getDiagnostic(marker));
 			} catch (CoreException e) {
 				LanguageServerPlugin.logError(e);
 				return false;
@@ -133,10 +133,12 @@ public class LSPCodeActionMarkerResolution implements IMarkerResolutionGenerator
 		IResource res = marker.getResource();
 		if (res != null && res.getType() == IResource.FILE) {
 			IFile file = (IFile)res;
-			Object[] attributes = marker.getAttributes(new String[]{LSPDiagnosticsToMarkers.LANGUAGE_SERVER_ID, LSPDiagnosticsToMarkers.LSP_DIAGNOSTIC});
-			String languageServerId = (String) attributes[0];
+			String languageServerId = marker.getAttribute(LSPDiagnosticsToMarkers.LANGUAGE_SERVER_ID, null);
 			List<CompletableFuture<?>> futures = new ArrayList<>();
-			Diagnostic diagnostic = (Diagnostic) attributes[1];
+			Diagnostic diagnostic = LSPDiagnosticsToMarkers.getDiagnostic(marker);
+			if (diagnostic == null) {
+				return;
+			}
 			for (CompletableFuture<LanguageServer> lsf : getLanguageServerFutures(file, languageServerId)) {
 				marker.setAttribute(LSP_REMEDIATION, COMPUTING);
 				CodeActionContext context = new CodeActionContext(Collections.singletonList(diagnostic));
@@ -27,6 +27,7 @@ import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.codemining.AbstractCodeMiningProvider;
 import org.eclipse.jface.text.codemining.ICodeMining;
+import org.eclipse.lsp4e.DocumentResponseCache;
 import org.eclipse.lsp4e.LSPEclipseUtils;
 import org.eclipse.lsp4e.LanguageServerPlugin;
 import org.eclipse.lsp4e.LanguageServiceAccessor;
@@ -59,8 +60,10 @@ public class DocumentColorProvider extends AbstractCodeMiningProvider {
 			final List<ColorInformationMining> colorResults = Collections.synchronizedList(new ArrayList<>());
 			return LanguageServiceAccessor.getLanguageServers(document, DocumentColorProvider::isColorProvider)
 					.thenComposeAsync(languageServers -> CompletableFuture
-							.allOf(languageServers.stream().map(languageServer -> languageServer
-									.getTextDocumentService().documentColor(param).thenAcceptAsync(colors -> {
+							.allOf(languageServers.stream().map(languageServer -> DocumentResponseCache
+									.getOrRequest(languageServer, docURI, DocumentResponseCache.DOCUMENT_COLOR, param,
+											ls -> ls.getTextDocumentService().documentColor(param))
+									.thenAcceptAsync(colors -> {
 										if (colors != null) {
 											colors.stream().filter(Objects::nonNull).map(color -> {
 												ColorInformationMining mining = null;
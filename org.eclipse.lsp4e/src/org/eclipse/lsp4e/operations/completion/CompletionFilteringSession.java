@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e.operations.completion;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentListener;
+
+/**
+ * The complete proposals the language servers computed for the word being
+ * typed in a document, narrowed locally as the user keeps typing that word
+ * instead of being requested again from the servers.
+ * <p>
+ * The session follows the changes of the document: it lasts as long as the
+ * only changes are identifier characters typed one at a time at the end of the
+ * word, or deleted from its end back to the offset the proposals were computed
+ * at. Any other change, such as typing a word boundary or editing elsewhere,
+ * ends it, and so does the end of the content assist session it was created
+ * for.
+ * </p>
+ */
+final class CompletionFilteringSession implements IDocumentListener {
+
+	private final @NonNull IDocument document;
+	private final int initialOffset;
+	private final @NonNull List<LSCompletionProposal> proposals;
+	private int offset;
+	private long modificationStamp;
+	private boolean valid = true;
+
+	CompletionFilteringSession(@NonNull IDocument document, int offset, long modificationStamp,
+			@NonNull List<LSCompletionProposal> proposals) {
+		this.document = document;
+		this.initialOffset = offset;
+		this.offset = offset;
+		this.modificationStamp = modificationStamp;
+		this.proposals = List.copyOf(proposals);
+		document.addDocumentListener(this);
+	}
+
+	/**
+	 * @return the proposals still matching the word typed up to the given
+	 *         offset, or <code>null</code> if the servers need to be asked again:
+	 *         when the document changed in another way than by typing that word,
+	 *         or when content assist is invoked again without anything typed
+	 *         since the last time
+	 */
+	@Nullable
+	List<LSCompletionProposal> filter(@NonNull IDocument document, int offset, long modificationStamp) {
+		synchronized (this) {
+			if (!valid || document != this.document || offset != this.offset
+					|| modificationStamp == this.modificationStamp
+					|| modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP) {
+				return null;
+			}
+			this.modificationStamp = modificationStamp;
+		}
+		// outside of the lock, as reading the document may wait for the thread
+		// notifying its changes
+		return proposals.stream() //
+				.filter(proposal -> proposal.validate(document, offset, null)) //
+				.collect(Collectors.toList());
+	}
+
+	synchronized void dispose() {
+		valid = false;
+		document.removeDocumentListener(this);
+	}
+
+	@Override
+	public void documentAboutToBeChanged(DocumentEvent event) {
+		// nothing to do
+	}
+
+	@Override
+	public synchronized void documentChanged(DocumentEvent event) {
+		if (!valid) {
+			return;
+		}
+		final String text = event.getText() == null ? "" : event.getText(); //$NON-NLS-1$
+		if (event.getLength() == 0 && event.getOffset() == offset && text.length() == 1
+				&& Character.isUnicodeIdentifierPart(text.charAt(0))) {
+			offset++;
+		} else if (text.isEmpty() && event.getOffset() + event.getLength() == offset
+				&& event.getOffset() >= initialOffset) {
+			offset = event.getOffset();
+		} else {
+			dispose();
+		}
+	}
+
+}
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e.operations.completion;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.lsp4e.LSPEclipseUtils;
+import org.eclipse.lsp4j.CompletionItem;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+/**
+ * Sends the <code>completionItem/resolve</code> requests of a language server
+ * and caches their results, so that the documentation and additional text
+ * edits of the items the user is likely to look at are usually resolved before
+ * they are needed.
+ * <p>
+ * Items carrying <code>data</code> are cached by their label, data and the URI
+ * and modification stamp of the document they were computed for, so that they
+ * are not resolved again when the completion popup is opened again on an
+ * unchanged document. Other items are cached by identity.
+ * </p>
+ * <p>
+ * Speculative resolutions are sent at most {@link #MAX_CONCURRENT_PREFETCHES}
+ * at a time; each new batch replaces the items of the previous one which were
+ * not sent yet, since they are not the ones around the selection anymore.
+ * Their failures are not reported, since nobody asked for their result.
+ * </p>
+ * <p>
+ * Resolvers don't reference their server, so that they are collected with it.
+ * </p>
+ */
+final class CompletionItemResolver {
+
+	/**
+	 * Maximum number of speculative resolve requests sent to a server at once
+	 */
+	static final int MAX_CONCURRENT_PREFETCHES = 4;
+	/**
+	 * Number of resolved items kept per server
+	 */
+	static final int CACHE_SIZE = 256;
+
+	private static final Map<LanguageServer, CompletionItemResolver> RESOLVERS = Collections
+			.synchronizedMap(new WeakHashMap<>());
+
+	/**
+	 * Cache key of an item without <code>data</code>
+	 */
+	private record IdentityKey(CompletionItem item) {
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			return obj instanceof IdentityKey other && other.item == item;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(item);
+		}
+	}
+
+	/**
+	 * Cache key of an item with <code>data</code>
+	 */
+	private record DataKey(String label, Object data, @Nullable URI documentUri, long modificationStamp) {
+	}
+
+	private final Map<Object, CompletableFuture<CompletionItem>> resolved = new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Entry<Object, CompletableFuture<CompletionItem>> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+	/**
+	 * Speculative resolutions not sent yet, in the order they'll be sent
+	 */
+	private final Map<Object, CompletionItem> pending = new LinkedHashMap<>();
+	private int prefetching;
+
+	private CompletionItemResolver() {
+		// per server, see forServer
+	}
+
+	static @NonNull CompletionItemResolver forServer(@NonNull LanguageServer server) {
+		return RESOLVERS.computeIfAbsent(server, key -> new CompletionItemResolver());
+	}
+
+	private static Object keyOf(CompletionItem item, IDocument document, long modificationStamp) {
+		return item.getData() != null
+				? new DataKey(item.getLabel(), item.getData(), LSPEclipseUtils.toUri(document), modificationStamp)
+				: new IdentityKey(item);
+	}
+
+	/**
+	 * @return the resolved item, sending the request right away if it was not
+	 *         already sent
+	 */
+	@NonNull
+	CompletableFuture<CompletionItem> resolve(@NonNull LanguageServer server, @NonNull CompletionItem item,
+			@NonNull IDocument document, long modificationStamp) {
+		final Object key = keyOf(item, document, modificationStamp);
+		synchronized (this) {
+			CompletableFuture<CompletionItem> future = resolved.get(key);
+			if (future == null) {
+				future = new CompletableFuture<>();
+				resolved.put(key, future);
+			} else if (pending.remove(key) == null) {
+				return future;
+			}
+			send(server, key, item, future, false);
+			return future;
+		}
+	}
+
+	/**
+	 * @return the resolved item if it's already known, <code>null</code>
+	 *         otherwise; never waits for a request
+	 */
+	@Nullable
+	synchronized CompletionItem getResolved(@NonNull CompletionItem item, @NonNull IDocument document,
+			long modificationStamp) {
+		final CompletableFuture<CompletionItem> future = resolved.get(keyOf(item, document, modificationStamp));
+		return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.getNow(null) : null;
+	}
+
+	/**
+	 * Speculatively resolves the given items, in order, replacing the items of
+	 * previous batches which were not sent yet
+	 */
+	synchronized void prefetch(@NonNull LanguageServer server, @NonNull List<CompletionItem> items,
+			@NonNull IDocument document, long modificationStamp) {
+		for (Object key : pending.keySet()) {
+			resolved.remove(key);
+		}
+		pending.clear();
+		for (CompletionItem item : items) {
+			final Object key = keyOf(item, document, modificationStamp);
+			if (!resolved.containsKey(key)) {
+				resolved.put(key, new CompletableFuture<>());
+				pending.put(key, item);
+			}
+		}
+		sendPending(server);
+	}
+
+	private synchronized void sendPending(LanguageServer server) {
+		final Iterator<Entry<Object, CompletionItem>> iterator = pending.entrySet().iterator();
+		while (prefetching < MAX_CONCURRENT_PREFETCHES && iterator.hasNext()) {
+			final Entry<Object, CompletionItem> next = iterator.next();
+			iterator.remove();
+			final CompletableFuture<CompletionItem> future = resolved.get(next.getKey());
+			if (future != null) {
+				prefetching++;
+				send(server, next.getKey(), next.getValue(), future, true);
+			}
+		}
+	}
+
+	private void send(LanguageServer server, Object key, CompletionItem item, CompletableFuture<CompletionItem> future,
+			boolean prefetch) {
+		server.getTextDocumentService().resolveCompletionItem(item).whenComplete((resolvedItem, error) -> {
+			if (error != null) {
+				// reported by the callers waiting for the item, if any
+				synchronized (this) {
+					resolved.remove(key, future);
+				}
+				future.completeExceptionally(error);
+			} else {
+				future.complete(resolvedItem);
+			}
+			if (prefetch) {
+				synchronized (this) {
+					prefetching--;
+				}
+				sendPending(server);
+			}
+		});
+	}
+
+}
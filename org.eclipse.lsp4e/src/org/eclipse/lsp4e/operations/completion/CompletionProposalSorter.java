@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e.operations.completion;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.lsp4e.LanguageServerPlugin;
+
+/**
+ * Orders completion proposals by the length of their document filter, the
+ * category and score of their filter match and their sort text, comparing
+ * ranking keys computed once per proposal.
+ * <p>
+ * Large lists are only partially sorted: the best {@link #TOP_K} proposals,
+ * which are the ones the popup shows first, are selected with a bounded heap
+ * and sorted, while the others follow only ordered by document filter length
+ * and match category, in the order the servers sent them otherwise, so that no
+ * score nor sort text is compared for them. Typing more characters narrows the list before
+ * the user would ever scroll that far.
+ * </p>
+ */
+final class CompletionProposalSorter {
+
+	/**
+	 * Number of proposals above which the list is only partially sorted
+	 */
+	static final int PARTIAL_SORT_THRESHOLD = 1000;
+	/**
+	 * Number of proposals fully sorted at the top of large lists
+	 */
+	static final int TOP_K = 100;
+
+	/**
+	 * The ranking keys of a proposal, read once
+	 */
+	private record RankedProposal(LSCompletionProposal proposal, int documentFilterLength, int category, int score,
+			String sortText, int index) {
+
+		static RankedProposal of(LSCompletionProposal proposal, int index) {
+			int documentFilterLength = 0;
+			try {
+				documentFilterLength = proposal.getLowerCaseDocumentFilter().length;
+			} catch (BadLocationException e) {
+				LanguageServerPlugin.logError(e);
+			}
+			return new RankedProposal(proposal, documentFilterLength, proposal.getRankCategory(),
+					proposal.getRankScore(), proposal.getSortText(), index);
+		}
+	}
+
+	private static final Comparator<RankedProposal> RANKING = (o1, o2) -> {
+		if (o1.documentFilterLength() != o2.documentFilterLength()) {
+			return o1.documentFilterLength() > o2.documentFilterLength() ? -1 : +1;
+		}
+		if (o1.category() != o2.category()) {
+			return o1.category() < o2.category() ? -1 : +1;
+		}
+		if ((o1.category() < 5 && o2.category() < 5) && (!(o1.score() == -1 && o2.score() == -1))) {
+			if (o2.score() == -1 || o1.score() < o2.score()) {
+				return -1;
+			} else if (o1.score() == -1 || o1.score() > o2.score()) {
+				return +1;
+			}
+		}
+		if (o1.sortText() == null) {
+			return -1;
+		}
+		return o1.sortText().compareToIgnoreCase(o2.sortText());
+	};
+
+	private static final Comparator<RankedProposal> COARSE_RANKING = Comparator
+			.comparingInt((RankedProposal proposal) -> -proposal.documentFilterLength())
+			.thenComparingInt(RankedProposal::category);
+
+	private CompletionProposalSorter() {
+		// utility class
+	}
+
+	/**
+	 * Sorts the given proposals in place, fully if there are less than
+	 * {@link #PARTIAL_SORT_THRESHOLD} of them, only the best {@link #TOP_K}
+	 * otherwise
+	 */
+	static void sort(LSCompletionProposal[] proposals) {
+		RankedProposal[] ranked = new RankedProposal[proposals.length];
+		for (int i = 0; i < proposals.length; i++) {
+			ranked[i] = RankedProposal.of(proposals[i], i);
+		}
+		if (proposals.length <= PARTIAL_SORT_THRESHOLD) {
+			Arrays.sort(ranked, RANKING);
+			for (int i = 0; i < ranked.length; i++) {
+				proposals[i] = ranked[i].proposal();
+			}
+			return;
+		}
+
+		// the worst of the best proposals found so far is at the head
+		PriorityQueue<RankedProposal> top = new PriorityQueue<>(TOP_K + 1, RANKING.reversed());
+		for (RankedProposal proposal : ranked) {
+			if (top.size() < TOP_K) {
+				top.add(proposal);
+			} else if (RANKING.compare(proposal, top.peek()) < 0) {
+				top.poll();
+				top.add(proposal);
+			}
+		}
+		RankedProposal[] best = top.toArray(new RankedProposal[top.size()]);
+		Arrays.sort(best, RANKING);
+		boolean[] isBest = new boolean[ranked.length];
+		int i = 0;
+		for (RankedProposal proposal : best) {
+			isBest[proposal.index()] = true;
+			proposals[i++] = proposal.proposal();
+		}
+		RankedProposal[] tail = new RankedProposal[ranked.length - best.length];
+		int j = 0;
+		for (RankedProposal proposal : ranked) {
+			if (!isBest[proposal.index()]) {
+				tail[j++] = proposal;
+			}
+		}
+		// stable, keeps the order of the servers within a category
+		Arrays.sort(tail, COARSE_RANKING);
+		for (RankedProposal proposal : tail) {
+			proposals[i++] = proposal.proposal();
+		}
+	}
+
+}
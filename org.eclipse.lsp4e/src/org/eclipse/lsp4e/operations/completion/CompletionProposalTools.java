@@ -11,6 +11,8 @@
  *******************************************************************************/
 package org.eclipse.lsp4e.operations.completion;
 
+import java.util.Arrays;
+
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 
@@ -40,14 +42,12 @@ public final class CompletionProposalTools {
 		int prefixToCursorLength = cursorOffset - completionInsertionOffset;
 		String prefixToCursor = document.get(completionInsertionOffset, prefixToCursorLength);
 		int i;
-		for (i = 0; i < prefixToCursor.length(); i++) {
-			if (!isSubstringFoundOrderedInString(
-					prefixToCursor.substring(prefixToCursorLength - i - 1, prefixToCursorLength),
-					completionItemFilter)) {
+		for (i = 0; i < prefixToCursorLength; i++) {
+			if (!isFoundOrderedInString(prefixToCursor, prefixToCursorLength - i - 1, completionItemFilter)) {
 				break;
 			}
 		}
-		return prefixToCursor.substring(prefixToCursor.length() - i);
+		return prefixToCursor.substring(prefixToCursorLength - i);
 	}
 
 	/**
@@ -58,20 +58,42 @@ public final class CompletionProposalTools {
 	 * @param string
 	 */
 	public static boolean isSubstringFoundOrderedInString(String subString, String string) {
+		return isFoundOrderedInString(subString, 0, string);
+	}
+
+	/**
+	 * If each of the characters of the subString from the given index are within
+	 * the given string in order, ignoring case
+	 */
+	private static boolean isFoundOrderedInString(String subString, int from, String string) {
 		int lastIndex = 0;
-		subString = subString.toLowerCase();
-		string = string.toLowerCase();
-		for (Character c : subString.toCharArray()) {
-			int index = string.indexOf(c, lastIndex);
-			if (index < 0) {
+		for (int i = from; i < subString.length(); i++) {
+			char c = Character.toLowerCase(subString.charAt(i));
+			while (lastIndex < string.length() && Character.toLowerCase(string.charAt(lastIndex)) != c) {
+				lastIndex++;
+			}
+			if (lastIndex == string.length()) {
 				return false;
-			} else {
-				lastIndex = index + 1;
 			}
+			lastIndex++;
 		}
 		return true;
 	}
 
+	/**
+	 * @return the given string as an array of lower case characters, to be
+	 *         computed once and matched against many times with
+	 *         {@link #getCategoryOfFilterMatch(char[], char[])} and
+	 *         {@link #getScoreOfFilterMatch(char[], char[])}
+	 */
+	public static char[] toLowerCaseChars(String string) {
+		char[] res = new char[string.length()];
+		for (int i = 0; i < res.length; i++) {
+			res[i] = Character.toLowerCase(string.charAt(i));
+		}
+		return res;
+	}
+
 	/**
 	 * Uses the document's filter and the completion's filter to decided which
 	 * category the match is.<br>
@@ -95,21 +117,29 @@ public final class CompletionProposalTools {
 	 * @return the category integer
 	 */
 	public static int getCategoryOfFilterMatch(String documentFilter, String completionFilter) {
-		if (documentFilter.isEmpty()) {
+		return getCategoryOfFilterMatch(toLowerCaseChars(documentFilter), toLowerCaseChars(completionFilter));
+	}
+
+	/**
+	 * Same as {@link #getCategoryOfFilterMatch(String, String)}, for filters
+	 * already in lower case
+	 *
+	 * @see #toLowerCaseChars(String)
+	 */
+	public static int getCategoryOfFilterMatch(char[] documentFilter, char[] completionFilter) {
+		if (documentFilter.length == 0) {
 			return 5;
 		}
-		documentFilter = documentFilter.toLowerCase();
-		completionFilter = completionFilter.toLowerCase();
-		int subIndex = completionFilter.indexOf(documentFilter);
+		int subIndex = indexOf(completionFilter, documentFilter, 0);
 		int topCategory = 5;
 		if (subIndex == -1) {
-			return isSubstringFoundOrderedInString(documentFilter, completionFilter) ? 4 : 5;
+			return isFoundOrderedInArray(documentFilter, completionFilter) ? 4 : 5;
 		}
 		while (subIndex != -1) {
-			if (subIndex > 0 && Character.isLetterOrDigit(completionFilter.charAt(subIndex - 1))) {
+			if (subIndex > 0 && Character.isLetterOrDigit(completionFilter[subIndex - 1])) {
 				topCategory = Math.min(topCategory, 3);
-			} else if (subIndex + documentFilter.length() < completionFilter.length() - 1
-					&& Character.isLetterOrDigit(completionFilter.charAt(subIndex + documentFilter.length() + 1))) {
+			} else if (subIndex + documentFilter.length < completionFilter.length - 1
+					&& Character.isLetterOrDigit(completionFilter[subIndex + documentFilter.length + 1])) {
 				topCategory = Math.min(topCategory, 2);
 			} else {
 				topCategory = 1;
@@ -117,11 +147,23 @@ public final class CompletionProposalTools {
 			if (topCategory == 1) {
 				break;
 			}
-			subIndex = completionFilter.indexOf(documentFilter, subIndex + 1);
+			subIndex = indexOf(completionFilter, documentFilter, subIndex + 1);
 		}
 		return topCategory;
 	}
 
+	private static boolean isFoundOrderedInArray(char[] subArray, char[] array) {
+		int lastIndex = 0;
+		for (char c : subArray) {
+			int index = indexOf(array, c, lastIndex);
+			if (index < 0) {
+				return false;
+			}
+			lastIndex = index + 1;
+		}
+		return true;
+	}
+
 	/**
 	 * Uses the document's filter and the completion's filter to decided how
 	 * successful the match is and gives it a score.<br>
@@ -144,56 +186,109 @@ public final class CompletionProposalTools {
 	 *         and -1 mean there was no match
 	 */
 	public static int getScoreOfFilterMatch(String documentFilter, String completionFilter) {
-		documentFilter = documentFilter.toLowerCase();
-		completionFilter = completionFilter.toLowerCase();
-		return getScoreOfFilterMatchHelper(0, documentFilter, completionFilter);
+		return getScoreOfFilterMatch(toLowerCaseChars(documentFilter), toLowerCaseChars(completionFilter));
 	}
 
-	private static int getScoreOfFilterMatchHelper(int prefixLength, String documentFilter, String completionFilter) {
-		if (documentFilter == null || documentFilter.isEmpty()) {
+	private static final int UNKNOWN_SCORE = Integer.MIN_VALUE;
+	private static final ThreadLocal<int[]> SCORES = ThreadLocal.withInitial(() -> new int[256]);
+
+	/**
+	 * Same as {@link #getScoreOfFilterMatch(String, String)}, for filters already
+	 * in lower case. The best score from each position in both filters is only
+	 * computed once, in a table reused by the following calls.
+	 *
+	 * @see #toLowerCaseChars(String)
+	 */
+	public static int getScoreOfFilterMatch(char[] documentFilter, char[] completionFilter) {
+		if (documentFilter.length == 0) {
 			return 0;
 		}
-		char searchChar = documentFilter.charAt(0);
-		int i = completionFilter.indexOf(searchChar);
+		int width = completionFilter.length + 1;
+		int size = documentFilter.length * width;
+		int[] scores = SCORES.get();
+		if (scores.length < size) {
+			scores = new int[Math.max(size, 2 * scores.length)];
+			SCORES.set(scores);
+		}
+		Arrays.fill(scores, 0, size, UNKNOWN_SCORE);
+		return getScoreOfFilterMatch(documentFilter, 0, completionFilter, 0, scores, width);
+	}
+
+	/**
+	 * @return the score of the match of the document filter from
+	 *         <code>d</code> in the completion filter from <code>c</code>,
+	 *         counting the characters before the matches from the start of the
+	 *         completion filter
+	 */
+	private static int getScoreOfFilterMatch(char[] documentFilter, int d, char[] completionFilter, int c,
+			int[] scores, int width) {
+		int score = scores[d * width + c];
+		if (score == UNKNOWN_SCORE) {
+			score = computeScoreOfFilterMatch(documentFilter, d, completionFilter, c, scores, width);
+			scores[d * width + c] = score;
+		}
+		return score;
+	}
+
+	private static int computeScoreOfFilterMatch(char[] documentFilter, int d, char[] completionFilter, int c,
+			int[] scores, int width) {
+		char searchChar = documentFilter[d];
+		int i = indexOf(completionFilter, searchChar, c);
 		if (i == -1) {
 			return -1;
 		}
-		if (documentFilter.length() == 1) {
-			return i + prefixLength;
+		if (documentFilter.length - d == 1) {
+			return i;
 		}
 
-		int matchLength = lengthOfPrefixMatch(documentFilter, completionFilter.substring(i));
-		if (matchLength == documentFilter.length()) {
-			return i + prefixLength;
+		int matchLength = lengthOfPrefixMatch(documentFilter, d, completionFilter, i);
+		if (d + matchLength == documentFilter.length) {
+			return i;
 		}
-		int bestScore = i + getScoreOfFilterMatchHelper(prefixLength + i + matchLength,
-				documentFilter.substring(matchLength),
-				completionFilter.substring(i + matchLength));
+		int bestScore = i - c + getScoreOfFilterMatch(documentFilter, d + matchLength, completionFilter,
+				i + matchLength, scores, width);
 
-		i = completionFilter.indexOf(searchChar, i + 1);
+		i = indexOf(completionFilter, searchChar, i + 1);
 		while (i != -1) {
-			matchLength = lengthOfPrefixMatch(documentFilter, completionFilter.substring(i));
-			if (matchLength == documentFilter.length()) {
-				return i + prefixLength;
+			matchLength = lengthOfPrefixMatch(documentFilter, d, completionFilter, i);
+			if (d + matchLength == documentFilter.length) {
+				return i;
 			}
-			int score = i + getScoreOfFilterMatchHelper(prefixLength + i + matchLength,
-					documentFilter.substring(matchLength),
-					completionFilter.substring(i + matchLength));
-			if (score == i - 1) {
+			int score = i - c + getScoreOfFilterMatch(documentFilter, d + matchLength, completionFilter,
+					i + matchLength, scores, width);
+			if (score == i - c - 1) {
 				break;
 			}
 			bestScore = Math.min(bestScore, score);
-			i = completionFilter.indexOf(searchChar, i + 1);
+			i = indexOf(completionFilter, searchChar, i + 1);
 		}
-		return prefixLength + bestScore;
+		return c + bestScore;
 	}
 
-	private static int lengthOfPrefixMatch(String first, String second) {
+	private static int lengthOfPrefixMatch(char[] first, int firstStart, char[] second, int secondStart) {
 		int i;
-		for (i = 0; i < Math.min(first.length(), second.length()); i++) {
-			if (first.charAt(i) != second.charAt(i))
+		for (i = 0; i < Math.min(first.length - firstStart, second.length - secondStart); i++) {
+			if (first[firstStart + i] != second[secondStart + i])
 				break;
 		}
 		return i;
 	}
+
+	private static int indexOf(char[] array, char c, int from) {
+		for (int i = from; i < array.length; i++) {
+			if (array[i] == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int indexOf(char[] array, char[] subArray, int from) {
+		for (int i = from; i <= array.length - subArray.length; i++) {
+			if (lengthOfPrefixMatch(subArray, 0, array, i) == subArray.length) {
+				return i;
+			}
+		}
+		return -1;
+	}
 }
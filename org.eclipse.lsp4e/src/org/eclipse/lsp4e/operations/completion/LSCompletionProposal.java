@@ -17,9 +17,11 @@
 package org.eclipse.lsp4e.operations.completion;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -39,6 +41,7 @@ import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.DefaultInformationControl;
 import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.IInformationControl;
 import org.eclipse.jface.text.IInformationControlCreator;
 import org.eclipse.jface.text.IRegion;
@@ -92,6 +95,11 @@ public class LSCompletionProposal
 		IContextInformation {
 
 	private static final int RESOLVE_TIMEOUT = 500;
+	/**
+	 * Number of proposals on each side of the selected one which are resolved
+	 * speculatively
+	 */
+	private static final int RESOLVED_NEIGHBOURS = 3;
 	// Those variables should be defined in LSP4J and reused here whenever done there
 	// See https://github.com/eclipse/lsp4j/issues/149
 	/** The currently selected text or the empty string */
@@ -141,7 +149,12 @@ public class LSCompletionProposal
 	private Integer rankScore;
 	private String documentFilter;
 	private String documentFilterAddition = ""; //$NON-NLS-1$
+	private char[] lowerCaseDocumentFilter;
+	private char[] lowerCaseFilterString;
 	private final LanguageServer languageServer;
+	private final long modificationStamp;
+	private LSCompletionProposal[] rankedProposals;
+	private int rank = -1;
 
 	public LSCompletionProposal(@NonNull IDocument document, int offset, @NonNull CompletionItem item,
 			LanguageServer languageServer) {
@@ -157,6 +170,58 @@ public class LSCompletionProposal
 		this.currentOffset = offset;
 		this.bestOffset = getPrefixCompletionStart(document, offset);
 		this.isIncomplete = isIncomplete;
+		this.modificationStamp = document instanceof IDocumentExtension4 ext ? ext.getModificationStamp()
+				: IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+
+	/**
+	 * Tells this proposal where it's displayed, so that the proposals around it
+	 * can be resolved speculatively when it gets selected
+	 */
+	void setRank(LSCompletionProposal[] rankedProposals, int rank) {
+		this.rankedProposals = rankedProposals;
+		this.rank = rank;
+	}
+
+	/**
+	 * Speculatively resolves the items of the given proposals, in bounded
+	 * batches per language server
+	 */
+	static void prefetchResolve(LSCompletionProposal[] proposals, int from, int to) {
+		final var batches = new LinkedHashMap<LanguageServer, List<CompletionItem>>();
+		IDocument document = null;
+		long stamp = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		for (LSCompletionProposal proposal : Arrays.copyOfRange(proposals, Math.max(0, from),
+				Math.min(proposals.length, to))) {
+			if (proposal.languageServer != null) {
+				batches.computeIfAbsent(proposal.languageServer, server -> new ArrayList<>()).add(proposal.item);
+				document = proposal.document;
+				stamp = proposal.modificationStamp;
+			}
+		}
+		for (Map.Entry<LanguageServer, List<CompletionItem>> batch : batches.entrySet()) {
+			if (document != null && isResolveProvider(batch.getKey())) {
+				CompletionItemResolver.forServer(batch.getKey()).prefetch(batch.getKey(), batch.getValue(), document,
+						stamp);
+			}
+		}
+	}
+
+	private static boolean isResolveProvider(LanguageServer languageServer) {
+		return LanguageServiceAccessor.checkCapability(languageServer,
+				capability -> capability.getCompletionProvider() != null
+						&& Boolean.TRUE.equals(capability.getCompletionProvider().getResolveProvider()));
+	}
+
+	/**
+	 * Merges the resolved item into this proposal's one if it was already
+	 * resolved, without waiting for the server
+	 */
+	private void applyResolvedItem() {
+		if (languageServer != null && isResolveProvider(languageServer)) {
+			updateCompletionItem(
+					CompletionItemResolver.forServer(languageServer).getResolved(item, document, modificationStamp));
+		}
 	}
 
 	/**
@@ -171,6 +236,7 @@ public class LSCompletionProposal
 				currentOffset = offset;
 				rankScore = null;
 				rankCategory = null;
+				lowerCaseDocumentFilter = null;
 				documentFilterAddition = offset > this.initialOffset ? document.get(initialOffset, offset - initialOffset) : ""; //$NON-NLS-1$
 			}
 			return documentFilter + documentFilterAddition;
@@ -195,6 +261,23 @@ public class LSCompletionProposal
 		return documentFilter;
 	}
 
+	/**
+	 * @return the document filter for the last given offset, in lower case
+	 */
+	char[] getLowerCaseDocumentFilter() throws BadLocationException {
+		if (lowerCaseDocumentFilter == null) {
+			lowerCaseDocumentFilter = CompletionProposalTools.toLowerCaseChars(getDocumentFilter());
+		}
+		return lowerCaseDocumentFilter;
+	}
+
+	private char[] getLowerCaseFilterString() {
+		if (lowerCaseFilterString == null) {
+			lowerCaseFilterString = CompletionProposalTools.toLowerCaseChars(getFilterString());
+		}
+		return lowerCaseFilterString;
+	}
+
 	/**
 	 * See {@link CompletionProposalTools#getScoreOfFilterMatch} for ranking logic
 	 *
@@ -205,8 +288,8 @@ public class LSCompletionProposal
 		if (rankScore != null)
 			return rankScore;
 		try {
-			rankScore = CompletionProposalTools.getScoreOfFilterMatch(getDocumentFilter(),
-					getFilterString());
+			rankScore = CompletionProposalTools.getScoreOfFilterMatch(getLowerCaseDocumentFilter(),
+					getLowerCaseFilterString());
 		} catch (BadLocationException e) {
 			LanguageServerPlugin.logError(e);
 			rankScore = -1;
@@ -226,8 +309,8 @@ public class LSCompletionProposal
 			return rankCategory;
 		}
 		try {
-			rankCategory = CompletionProposalTools.getCategoryOfFilterMatch(getDocumentFilter(),
-					getFilterString());
+			rankCategory = CompletionProposalTools.getCategoryOfFilterMatch(getLowerCaseDocumentFilter(),
+					getLowerCaseFilterString());
 		} catch (BadLocationException e) {
 			LanguageServerPlugin.logError(e);
 			rankCategory = 5;
@@ -323,11 +406,14 @@ public class LSCompletionProposal
 
 	@Override
 	public String getAdditionalProposalInfo(IProgressMonitor monitor) {
-		if (LanguageServiceAccessor.checkCapability(languageServer,
-				capability -> Boolean.TRUE.equals(capability.getCompletionProvider().getResolveProvider()))) {
+		if (languageServer != null && isResolveProvider(languageServer)) {
+			if (rankedProposals != null) {
+				prefetchResolve(rankedProposals, rank - RESOLVED_NEIGHBOURS, rank + RESOLVED_NEIGHBOURS + 1);
+			}
 			try {
-				languageServer.getTextDocumentService().resolveCompletionItem(item).thenAcceptAsync(this::updateCompletionItem)
-						.get(RESOLVE_TIMEOUT, TimeUnit.MILLISECONDS);
+				updateCompletionItem(CompletionItemResolver.forServer(languageServer)
+						.resolve(languageServer, item, document, modificationStamp)
+						.get(RESOLVE_TIMEOUT, TimeUnit.MILLISECONDS));
 			} catch (ExecutionException e) {
 				LanguageServerPlugin.logError(e);
 			} catch (InterruptedException e) {
@@ -428,6 +514,7 @@ public class LSCompletionProposal
 	}
 
 	protected void apply(IDocument document, char trigger, int stateMask, int offset) {
+		applyResolvedItem();
 		String insertText = null;
 		Either<TextEdit, InsertReplaceEdit> eitherTextEdit = item.getTextEdit();
 		TextEdit textEdit = null;
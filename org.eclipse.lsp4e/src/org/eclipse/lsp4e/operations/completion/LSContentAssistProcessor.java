@@ -18,33 +18,40 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
-import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.ITextOperationTarget;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.contentassist.CompletionProposal;
-import org.eclipse.jface.text.contentassist.ContextInformation;
-import org.eclipse.jface.text.contentassist.ContextInformationValidator;
+import org.eclipse.jface.text.contentassist.ContentAssistEvent;
+import org.eclipse.jface.text.contentassist.ContentAssistantFacade;
+import org.eclipse.jface.text.contentassist.ICompletionListener;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.jface.text.contentassist.ICompletionProposalExtension2;
 import org.eclipse.jface.text.contentassist.IContentAssistProcessor;
 import org.eclipse.jface.text.contentassist.IContextInformation;
 import org.eclipse.jface.text.contentassist.IContextInformationValidator;
+import org.eclipse.jface.text.source.ISourceViewer;
+import org.eclipse.jface.text.source.ISourceViewerExtension4;
+import org.eclipse.lsp4e.CancellationSupport;
 import org.eclipse.lsp4e.LSPEclipseUtils;
 import org.eclipse.lsp4e.LanguageServerPlugin;
+import org.eclipse.lsp4e.LanguageServersRegistry.LanguageServerDefinition;
 import org.eclipse.lsp4e.LanguageServiceAccessor;
 import org.eclipse.lsp4e.ui.Messages;
 import org.eclipse.lsp4e.ui.UI;
@@ -53,27 +60,42 @@ import org.eclipse.lsp4j.CompletionList;
 import org.eclipse.lsp4j.CompletionOptions;
 import org.eclipse.lsp4j.CompletionParams;
 import org.eclipse.lsp4j.SignatureHelpOptions;
-import org.eclipse.lsp4j.SignatureHelpParams;
-import org.eclipse.lsp4j.SignatureInformation;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.eclipse.lsp4j.services.LanguageServer;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.custom.StyledText;
 import org.eclipse.ui.texteditor.ITextEditor;
 
 import com.google.common.base.Strings;
 
 public class LSContentAssistProcessor implements IContentAssistProcessor {
 
-	private static final long TRIGGERS_TIMEOUT = 50;
 	private static final long CONTEXT_INFORMATION_TIMEOUT = 1000;
+	private static final String LATENCY_BUDGET__KEY = "completion.latencyBudget"; //$NON-NLS-1$
+	/**
+	 * Time (in milliseconds) to wait for the proposals of a language server before
+	 * showing the ones of the other servers
+	 */
+	private static final int DEFAULT_LATENCY_BUDGET = 1000;
+	/**
+	 * Number of proposals at the top of the list which are resolved speculatively
+	 */
+	private static final int RESOLVED_TOP_PROPOSALS = 10;
 	private IDocument currentDocument;
 	private String errorMessage;
 	private final boolean errorAsCompletionItem;
-	private CompletableFuture<List<@NonNull LanguageServer>> completionLanguageServersFuture;
-	private final Object completionTriggerCharsSemaphore = new Object();
-	private char[] completionTriggerChars = new char[0];
-	private CompletableFuture<List<@NonNull LanguageServer>> contextInformationLanguageServersFuture;
-	private final Object contextTriggerCharsSemaphore = new Object();
-	private char[] contextTriggerChars = new char[0];
+	private volatile CompletableFuture<List<@NonNull LanguageServer>> completionLanguageServersFuture;
+	private volatile char[] completionTriggerChars = new char[0];
+	private volatile CompletableFuture<List<@NonNull LanguageServer>> contextInformationLanguageServersFuture;
+	private volatile char[] contextTriggerChars = new char[0];
+	private volatile char[] contextRetriggerChars = new char[0];
+	private final SignatureHelpController signatureHelpController = new SignatureHelpController();
+	/**
+	 * The {@link LanguageServiceAccessor#getCapabilitiesGeneration()} the trigger
+	 * characters were computed for. They're computed in background and pushed
+	 * into the fields above, so that content assist never waits for them.
+	 */
+	private long triggersCapabilitiesGeneration = -1;
 
 	public LSContentAssistProcessor() {
 		this(true);
@@ -83,7 +105,60 @@ public class LSContentAssistProcessor implements IContentAssistProcessor {
 		this.errorAsCompletionItem = errorAsCompletionItem;
 	}
 
-	private final Comparator<LSCompletionProposal> proposalComparator = new LSCompletionProposalComparator();
+	/**
+	 * The completion request sent to one language server
+	 */
+	private record ServerCompletion(@NonNull String serverId, @NonNull String serverLabel, long startTime,
+			@NonNull CompletableFuture<List<LSCompletionProposal>> proposals) {
+	}
+
+	/**
+	 * The completion requests sent for a given offset of a given version of a
+	 * document, reused when content assist is invoked again at the same place to
+	 * merge the proposals of the servers that were late
+	 */
+	private record CompletionSession(@NonNull IDocument document, int offset, long modificationStamp,
+			long startTime, @NonNull CancellationSupport cancellation,
+			@NonNull CompletableFuture<List<ServerCompletion>> completions,
+			@NonNull Set<CompletableFuture<?>> watchedFutures, @NonNull AtomicBoolean incomplete) {
+
+		boolean isFor(IDocument document, int offset, long modificationStamp) {
+			return this.document == document && this.offset == offset
+					&& this.modificationStamp == modificationStamp
+					&& modificationStamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		}
+	}
+
+	private volatile CompletionSession completionSession;
+	private volatile CompletionFilteringSession filteringSession;
+
+	/**
+	 * The content assistant of the last viewer proposals were computed for, whose
+	 * sessions are tracked to only refresh a popup that is still open
+	 */
+	private ContentAssistantFacade contentAssistant;
+	private volatile boolean assistSessionActive;
+	private final ICompletionListener assistSessionListener = new ICompletionListener() {
+		@Override
+		public void assistSessionStarted(ContentAssistEvent event) {
+			assistSessionActive = true;
+		}
+
+		@Override
+		public void assistSessionEnded(ContentAssistEvent event) {
+			assistSessionActive = false;
+			CompletionFilteringSession filtering = filteringSession;
+			if (filtering != null) {
+				filtering.dispose();
+				filteringSession = null;
+			}
+		}
+
+		@Override
+		public void selectionChanged(ICompletionProposal proposal, boolean smartToggle) {
+			// only sessions matter
+		}
+	};
 
 	@Override
 	public ICompletionProposal[] computeCompletionProposals(ITextViewer viewer, int offset) {
@@ -95,25 +170,43 @@ public class LSContentAssistProcessor implements IContentAssistProcessor {
 		}
 
 		initiateLanguageServers(document);
-		CompletionParams param;
-
-		try {
-			param = LSPEclipseUtils.toCompletionParams(uri, offset, document);
-		} catch (BadLocationException e) {
-			LanguageServerPlugin.logError(e);
-			this.errorMessage = createErrorMessage(offset, e);
-			return createErrorProposal(offset, e);
+		listenToAssistSessions(viewer);
+		long modificationStamp = getModificationStamp(document);
+		CompletionFilteringSession filtering = this.filteringSession;
+		if (filtering != null) {
+			List<LSCompletionProposal> filtered = filtering.filter(document, offset, modificationStamp);
+			if (filtered != null) {
+				return toSortedProposals(filtered, Collections.emptyList());
+			}
+			filtering.dispose();
+			this.filteringSession = null;
+		}
+		CompletionSession session = this.completionSession;
+		if (session == null || session.watchedFutures().isEmpty()
+				|| !session.isFor(document, offset, modificationStamp)) {
+			CompletionParams param;
+			try {
+				param = LSPEclipseUtils.toCompletionParams(uri, offset, document);
+			} catch (BadLocationException e) {
+				LanguageServerPlugin.logError(e);
+				this.errorMessage = createErrorMessage(offset, e);
+				return createErrorProposal(offset, e);
+			}
+			if (session != null) {
+				session.cancellation().cancel();
+			}
+			session = requestCompletions(document, offset, modificationStamp, param);
+			this.completionSession = session;
 		}
 
-		List<ICompletionProposal> proposals = Collections.synchronizedList(new ArrayList<>());
+		List<ServerCompletion> completions;
 		try {
-			this.completionLanguageServersFuture
-					.thenComposeAsync(languageServers -> CompletableFuture.allOf(languageServers.stream()
-							.map(languageServer -> languageServer.getTextDocumentService().completion(param)
-									.thenAcceptAsync(completion -> proposals
-											.addAll(toProposals(document, offset, completion, languageServer))))
-							.toArray(CompletableFuture[]::new)))
-					.get();
+			// starting the servers eats into the latency budget rather than blocking the UI
+			completions = session.completions().get(getRemainingTime(session.startTime(), DEFAULT_LATENCY_BUDGET),
+					TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			reinvokeWhenDone(viewer, session, session.completions());
+			return new ICompletionProposal[] { createComputingProposal(offset, Messages.completionComputingServers) };
 		} catch (ExecutionException e) {
 			LanguageServerPlugin.logError(e);
 			this.errorMessage = createErrorMessage(offset, e);
@@ -125,18 +218,158 @@ public class LSContentAssistProcessor implements IContentAssistProcessor {
 			return createErrorProposal(offset, e);
 		}
 
-		LSCompletionProposal[] completeProposals = new LSCompletionProposal[proposals.size()];
-		int i = 0;
-		for (ICompletionProposal proposal : proposals) {
-			if (proposal instanceof LSCompletionProposal completeProposal) {
-				completeProposals[i] = completeProposal;
-				i++;
-			} else {
-				return proposals.toArray(new ICompletionProposal[proposals.size()]);
+		List<LSCompletionProposal> proposals = new ArrayList<>();
+		List<ICompletionProposal> computingProposals = new ArrayList<>();
+		ExecutionException error = null;
+		for (ServerCompletion completion : completions) {
+			try {
+				proposals.addAll(completion.proposals().get(getRemainingBudget(completion), TimeUnit.MILLISECONDS));
+			} catch (TimeoutException e) {
+				// shown once the server answers, if the popup is still open
+				reinvokeWhenDone(viewer, session, completion.proposals());
+				computingProposals.add(createComputingProposal(offset,
+						NLS.bind(Messages.completionComputing, completion.serverLabel())));
+			} catch (ExecutionException e) {
+				LanguageServerPlugin.logError(e);
+				error = e;
+			} catch (CancellationException e) {
+				// superseded by a newer session
+			} catch (InterruptedException e) {
+				LanguageServerPlugin.logError(e);
+				this.errorMessage = createErrorMessage(offset, e);
+				Thread.currentThread().interrupt();
+				return createErrorProposal(offset, e);
 			}
 		}
-		Arrays.sort(completeProposals, proposalComparator);
-		return completeProposals;
+		if (error != null && proposals.isEmpty() && computingProposals.isEmpty()) {
+			this.errorMessage = createErrorMessage(offset, error);
+			return createErrorProposal(offset, error);
+		}
+
+		if (error == null && computingProposals.isEmpty() && !session.incomplete().get()
+				&& modificationStamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP && assistSessionActive) {
+			// all the lists are complete, the next keystrokes of this word only narrow them,
+			// until the end of the assist session disposes the filtering session
+			this.filteringSession = new CompletionFilteringSession(document, offset, modificationStamp, proposals);
+		}
+		return toSortedProposals(proposals, computingProposals);
+	}
+
+	private ICompletionProposal[] toSortedProposals(List<LSCompletionProposal> proposals,
+			List<ICompletionProposal> computingProposals) {
+		LSCompletionProposal[] completeProposals = proposals.toArray(new LSCompletionProposal[proposals.size()]);
+		CompletionProposalSorter.sort(completeProposals);
+		for (int i = 0; i < completeProposals.length; i++) {
+			completeProposals[i].setRank(completeProposals, i);
+		}
+		LSCompletionProposal.prefetchResolve(completeProposals, 0, RESOLVED_TOP_PROPOSALS);
+		if (computingProposals.isEmpty()) {
+			return completeProposals;
+		}
+		List<ICompletionProposal> res = new ArrayList<>(completeProposals.length + computingProposals.size());
+		res.addAll(Arrays.asList(completeProposals));
+		res.addAll(computingProposals);
+		return res.toArray(new ICompletionProposal[res.size()]);
+	}
+
+	private @NonNull CompletionSession requestCompletions(@NonNull IDocument document, int offset,
+			long modificationStamp, @NonNull CompletionParams param) {
+		long startTime = System.currentTimeMillis();
+		CancellationSupport cancellation = new CancellationSupport();
+		AtomicBoolean incomplete = new AtomicBoolean();
+		CompletableFuture<List<ServerCompletion>> completions = this.completionLanguageServersFuture
+				.thenApply(languageServers -> languageServers.stream().map(languageServer -> {
+					Optional<LanguageServerDefinition> definition = LanguageServiceAccessor
+							.resolveServerDefinition(languageServer);
+					CompletableFuture<List<LSCompletionProposal>> proposals = cancellation
+							.execute(languageServer.getTextDocumentService().completion(param))
+							.thenApplyAsync(completion -> {
+								if (completion != null && completion.isRight() && completion.getRight().isIncomplete()) {
+									incomplete.set(true);
+								}
+								return toProposals(document, offset, completion, languageServer);
+							});
+					return new ServerCompletion(definition.map(d -> d.id).orElse(""), //$NON-NLS-1$
+							definition.map(d -> d.label).orElse(""), startTime, proposals); //$NON-NLS-1$
+				}).collect(Collectors.toList()));
+		return new CompletionSession(document, offset, modificationStamp, startTime, cancellation, completions,
+				ConcurrentHashMap.newKeySet(), incomplete);
+	}
+
+	private static long getModificationStamp(IDocument document) {
+		return document instanceof IDocumentExtension4 extension ? extension.getModificationStamp()
+				: IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+
+	/**
+	 * @return the time (in milliseconds) left to wait for the proposals of the
+	 *         given request, according to the latency budget of its server set in
+	 *         the preferences, counted from the invocation of content assist
+	 */
+	private static long getRemainingBudget(@NonNull ServerCompletion completion) {
+		int latencyBudget = LanguageServerPlugin.getDefault().getPreferenceStore()
+				.getInt(completion.serverId() + '.' + LATENCY_BUDGET__KEY);
+		if (latencyBudget <= 0) {
+			latencyBudget = DEFAULT_LATENCY_BUDGET;
+		}
+		return getRemainingTime(completion.startTime(), latencyBudget);
+	}
+
+	private static long getRemainingTime(long startTime, int budget) {
+		return Math.max(0, startTime + budget - System.currentTimeMillis());
+	}
+
+	private static ICompletionProposal createComputingProposal(int offset, String label) {
+		return new CompletionProposal("", offset, 0, 0, null, label, null, null); //$NON-NLS-1$
+	}
+
+	/**
+	 * Invokes content assist again once the given future is done, to merge its
+	 * proposals into the popup if it is still open for the same session.
+	 */
+	private void reinvokeWhenDone(@NonNull ITextViewer viewer, @NonNull CompletionSession session,
+			@NonNull CompletableFuture<?> future) {
+		if (!session.watchedFutures().add(future)) {
+			return;
+		}
+		future.whenComplete((result, error) -> {
+			StyledText widget = viewer.getTextWidget();
+			if (future.isCancelled() || widget == null || widget.isDisposed()) {
+				return;
+			}
+			widget.getDisplay().asyncExec(() -> {
+				if (this.completionSession != session || widget.isDisposed()
+						|| viewer.getSelectedRange().x != session.offset()
+						|| !session.isFor(viewer.getDocument(), session.offset(),
+								getModificationStamp(viewer.getDocument()))
+						|| !assistSessionActive) {
+					return;
+				}
+				((ITextOperationTarget) viewer).doOperation(ISourceViewer.CONTENTASSIST_PROPOSALS);
+			});
+		});
+	}
+
+	/**
+	 * Tracks the sessions of the content assistant of the given viewer, if it
+	 * exposes one.
+	 */
+	private synchronized void listenToAssistSessions(@NonNull ITextViewer viewer) {
+		ContentAssistantFacade facade = viewer instanceof ISourceViewerExtension4 extension
+				? extension.getContentAssistantFacade()
+				: null;
+		if (facade == this.contentAssistant) {
+			return;
+		}
+		if (this.contentAssistant != null) {
+			this.contentAssistant.removeCompletionListener(assistSessionListener);
+		}
+		this.contentAssistant = facade;
+		if (facade != null) {
+			facade.addCompletionListener(assistSessionListener);
+			// the session computing these proposals started before the listener was added
+			this.assistSessionActive = true;
+		}
 	}
 
 	private ICompletionProposal[] createErrorProposal(int offset, Exception ex) {
@@ -153,6 +386,7 @@ public class LSContentAssistProcessor implements IContentAssistProcessor {
 	}
 
 	private void initiateLanguageServers(@NonNull IDocument document) {
+		final long capabilitiesGeneration = LanguageServiceAccessor.getCapabilitiesGeneration();
 		if (currentDocument != document) {
 			this.currentDocument = document;
 			if (this.completionLanguageServersFuture != null) {
@@ -171,33 +405,54 @@ public class LSContentAssistProcessor implements IContentAssistProcessor {
 			}
 			this.completionTriggerChars = new char[0];
 			this.contextTriggerChars = new char[0];
+			this.contextRetriggerChars = new char[0];
+		} else if (this.triggersCapabilitiesGeneration == capabilitiesGeneration) {
+			return;
+		}
+		this.triggersCapabilitiesGeneration = capabilitiesGeneration;
 
-			this.completionLanguageServersFuture = LanguageServiceAccessor.getLanguageServers(document,
-					capabilities -> {
-						CompletionOptions provider = capabilities.getCompletionProvider();
-						if (provider != null) {
-							synchronized (this.completionTriggerCharsSemaphore) {
-								this.completionTriggerChars = mergeTriggers(this.completionTriggerChars,
-										provider.getTriggerCharacters());
-							}
-							return true;
-						}
-						return false;
-					});
-			this.contextInformationLanguageServersFuture = LanguageServiceAccessor.getLanguageServers(document,
-					capabilities -> {
-						SignatureHelpOptions provider = capabilities.getSignatureHelpProvider();
-						if (provider != null) {
-							synchronized (this.contextTriggerCharsSemaphore) {
-								this.contextTriggerChars = mergeTriggers(this.contextTriggerChars,
-										provider.getTriggerCharacters());
-							}
-							return true;
+		final Set<String> completionTriggers = ConcurrentHashMap.newKeySet();
+		final CompletableFuture<List<@NonNull LanguageServer>> completionFuture = LanguageServiceAccessor
+				.getLanguageServers(document, capabilities -> {
+					CompletionOptions provider = capabilities.getCompletionProvider();
+					if (provider != null) {
+						if (provider.getTriggerCharacters() != null) {
+							completionTriggers.addAll(provider.getTriggerCharacters());
 						}
-						return false;
-					});
-		}
+						return true;
+					}
+					return false;
+				});
+		this.completionLanguageServersFuture = completionFuture;
+		completionFuture.thenRun(() -> {
+			if (this.completionLanguageServersFuture == completionFuture) {
+				this.completionTriggerChars = toTriggerChars(completionTriggers);
+			}
+		});
 
+		final Set<String> contextTriggers = ConcurrentHashMap.newKeySet();
+		final Set<String> contextRetriggers = ConcurrentHashMap.newKeySet();
+		final CompletableFuture<List<@NonNull LanguageServer>> contextFuture = LanguageServiceAccessor
+				.getLanguageServers(document, capabilities -> {
+					SignatureHelpOptions provider = capabilities.getSignatureHelpProvider();
+					if (provider != null) {
+						if (provider.getTriggerCharacters() != null) {
+							contextTriggers.addAll(provider.getTriggerCharacters());
+						}
+						if (provider.getRetriggerCharacters() != null) {
+							contextRetriggers.addAll(provider.getRetriggerCharacters());
+						}
+						return true;
+					}
+					return false;
+				});
+		this.contextInformationLanguageServersFuture = contextFuture;
+		contextFuture.thenRun(() -> {
+			if (this.contextInformationLanguageServersFuture == contextFuture) {
+				this.contextTriggerChars = toTriggerChars(contextTriggers);
+				this.contextRetriggerChars = toTriggerChars(contextRetriggers);
+			}
+		});
 	}
 
 	private void initiateLanguageServers() {
@@ -209,7 +464,7 @@ public class LSContentAssistProcessor implements IContentAssistProcessor {
 			}
 		}
 	}
-	private static List<ICompletionProposal> toProposals(IDocument document,
+	private static List<LSCompletionProposal> toProposals(IDocument document,
 			int offset, Either<List<CompletionItem>, CompletionList> completionList, LanguageServer languageServer) {
 		if (completionList == null) {
 			return Collections.emptyList();
@@ -227,26 +482,11 @@ public class LSContentAssistProcessor implements IContentAssistProcessor {
 	@Override
 	public IContextInformation[] computeContextInformation(ITextViewer viewer, int offset) {
 		initiateLanguageServers(viewer.getDocument());
-		SignatureHelpParams param;
 		try {
-			param = LSPEclipseUtils.toSignatureHelpParams(offset, viewer.getDocument());
-		} catch (BadLocationException e) {
-			LanguageServerPlugin.logError(e);
-			return new IContextInformation[] { /* TODO? show error in context information */ };
-		}
-		List<IContextInformation> contextInformations = Collections.synchronizedList(new ArrayList<>());
-		try {
-			contextInformationLanguageServersFuture
-					.thenComposeAsync(languageServers -> CompletableFuture.allOf(languageServers.stream()
-							.map(languageServer -> languageServer.getTextDocumentService().signatureHelp(param))
-							.map(signatureHelpFuture -> signatureHelpFuture.thenAcceptAsync(signatureHelp -> {
-								if (signatureHelp != null) {
-									signatureHelp.getSignatures().stream().map(LSContentAssistProcessor::toContextInformation)
-										.forEach(contextInformations::add);
-								}
-							})).toArray(CompletableFuture[]::new)))
-					.get(CONTEXT_INFORMATION_TIMEOUT, TimeUnit.MILLISECONDS);
-		} catch (ExecutionException e) {
+			return signatureHelpController.computeContextInformation(viewer.getDocument(), offset,
+					contextInformationLanguageServersFuture, contextTriggerChars, contextRetriggerChars,
+					CONTEXT_INFORMATION_TIMEOUT);
+		} catch (BadLocationException | ExecutionException e) {
 			LanguageServerPlugin.logError(e);
 			return new IContextInformation[] { /* TODO? show error in context information */ };
 		} catch (InterruptedException e) {
@@ -257,70 +497,33 @@ public class LSContentAssistProcessor implements IContentAssistProcessor {
 			LanguageServerPlugin.logWarning("Could not compute  context information due to timeout after " + CONTEXT_INFORMATION_TIMEOUT + " miliseconds", e);  //$NON-NLS-1$//$NON-NLS-2$
 			return new IContextInformation[] { /* TODO? show error in context information */ };
 		}
-		return contextInformations.toArray(new IContextInformation[0]);
-	}
-
-	private static IContextInformation toContextInformation(SignatureInformation information) {
-		StringBuilder signature = new StringBuilder(information.getLabel());
-		String docString = LSPEclipseUtils.getDocString(information.getDocumentation());
-		if (docString!=null && !docString.isEmpty()) {
-			signature.append('\n').append(docString);
-		}
-		IContextInformation contextInformation = new ContextInformation(
-				information.getLabel(), signature.toString());
-		return contextInformation;
 	}
 
-	private void getFuture(CompletableFuture<List<@NonNull LanguageServer>> future) {
-		if(future == null) {
-			return;
-		}
-
-		try {
-			future.get(TRIGGERS_TIMEOUT, TimeUnit.MILLISECONDS);
-		} catch (OperationCanceledException | ExecutionException e) {
-			LanguageServerPlugin.logError(e);
-		} catch (InterruptedException e) {
-			LanguageServerPlugin.logError(e);
-			Thread.currentThread().interrupt();
-		} catch (TimeoutException e) {
-			LanguageServerPlugin.logWarning("Could not get trigger characters due to timeout after " + TRIGGERS_TIMEOUT + " miliseconds", e); //$NON-NLS-1$//$NON-NLS-2$
-		}
-	}
-
-	private static char[] mergeTriggers(char[] initialArray, Collection<String> additionalTriggers) {
-		if (initialArray == null) {
-			initialArray = new char[0];
-		}
-		if (additionalTriggers == null) {
-			additionalTriggers = Collections.emptySet();
-		}
-		Set<Character> triggers = new HashSet<>(initialArray.length);
-		for (char c : initialArray) {
-			triggers.add(c);
-		}
-		additionalTriggers.stream().filter(s -> !Strings.isNullOrEmpty(s))
-				.map(triggerChar -> triggerChar.charAt(0)).forEach(triggers::add);
-		char[] res = new char[triggers.size()];
-		int i = 0;
-		for (Character c : triggers) {
-			res[i] = c;
-			i++;
+	/**
+	 * @return the first character of each of the given triggers, sorted and
+	 *         without duplicates
+	 */
+	private static char[] toTriggerChars(Collection<String> triggers) {
+		final var res = new StringBuilder(triggers.size());
+		for (String trigger : triggers) {
+			if (!Strings.isNullOrEmpty(trigger) && res.indexOf(trigger.substring(0, 1)) == -1) {
+				res.append(trigger.charAt(0));
+			}
 		}
-		return res;
+		final char[] chars = res.toString().toCharArray();
+		Arrays.sort(chars);
+		return chars;
 	}
 
 	@Override
 	public char[] getCompletionProposalAutoActivationCharacters() {
 		initiateLanguageServers();
-		getFuture(completionLanguageServersFuture);
 		return completionTriggerChars;
 	}
 
 	@Override
 	public char[] getContextInformationAutoActivationCharacters() {
 		initiateLanguageServers();
-		getFuture(contextInformationLanguageServersFuture);
 		return contextTriggerChars;
 	}
 
@@ -331,6 +534,6 @@ public class LSContentAssistProcessor implements IContentAssistProcessor {
 
 	@Override
 	public IContextInformationValidator getContextInformationValidator() {
-		return new ContextInformationValidator(this);
+		return new SignatureHelpController.Validator(this);
 	}
 }
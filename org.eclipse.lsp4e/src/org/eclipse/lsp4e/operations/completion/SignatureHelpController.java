@@ -0,0 +1,452 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e.operations.completion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.TextPresentation;
+import org.eclipse.jface.text.contentassist.ContextInformation;
+import org.eclipse.jface.text.contentassist.IContentAssistProcessor;
+import org.eclipse.jface.text.contentassist.IContextInformation;
+import org.eclipse.jface.text.contentassist.IContextInformationPresenter;
+import org.eclipse.jface.text.contentassist.IContextInformationValidator;
+import org.eclipse.lsp4e.LSPEclipseUtils;
+import org.eclipse.lsp4e.LanguageServerPlugin;
+import org.eclipse.lsp4j.ParameterInformation;
+import org.eclipse.lsp4j.SignatureHelp;
+import org.eclipse.lsp4j.SignatureHelpContext;
+import org.eclipse.lsp4j.SignatureHelpParams;
+import org.eclipse.lsp4j.SignatureHelpTriggerKind;
+import org.eclipse.lsp4j.SignatureInformation;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
+import org.eclipse.lsp4j.jsonrpc.messages.Tuple;
+import org.eclipse.lsp4j.services.LanguageServer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.StyleRange;
+
+/**
+ * Computes the signature help of the call the cursor is in, caching the answers
+ * of the language servers per call site.
+ * <p>
+ * While the cursor stays in the same call, the active parameter is updated
+ * locally by counting the commas typed since the servers answered. The servers
+ * are only asked again when the cursor leaves the call or when a trigger or
+ * retrigger character is typed, with a {@link SignatureHelpContext} telling
+ * them what they answered last for this call. The cached answers are dropped as
+ * soon as the cursor is found outside of their call, or the document is changed
+ * at or before the start of their call, so that another call opened later at
+ * the same offset isn't answered from them.
+ * </p>
+ */
+final class SignatureHelpController {
+
+	/**
+	 * Maximum number of characters scanned backwards to find the call the cursor
+	 * is in
+	 */
+	private static final int MAX_CALL_SCAN = 10_000;
+
+	private record ServerSignatureHelp(@NonNull LanguageServer server, @Nullable SignatureHelp signatureHelp) {
+	}
+
+	/**
+	 * The answers of the servers for the call opened at the given offset of a
+	 * document, and the number of commas in the call when they answered
+	 */
+	private record CallSignatureHelp(@NonNull IDocument document, int callStart, int commas,
+			@NonNull List<ServerSignatureHelp> helps) {
+	}
+
+	private volatile CallSignatureHelp callSignatureHelp;
+	private volatile long lastModificationStamp = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+
+	/**
+	 * Drops the cached answers when their call may have been replaced
+	 */
+	private final IDocumentListener callChangeListener = new IDocumentListener() {
+		@Override
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			// nothing to do
+		}
+
+		@Override
+		public void documentChanged(DocumentEvent event) {
+			final CallSignatureHelp current = callSignatureHelp;
+			if (current != null && current.document() == event.getDocument()
+					&& event.getOffset() <= current.callStart()) {
+				setCallSignatureHelp(current, null);
+			}
+		}
+	};
+
+	/**
+	 * The information of a signature, which knows which of its parameters is
+	 * active for a given offset of the call
+	 */
+	static final class SignatureContextInformation extends ContextInformation {
+
+		private final @NonNull SignatureInformation signature;
+		private final int callStart;
+		private final int commas;
+		private final int activeParameter;
+
+		SignatureContextInformation(@NonNull SignatureInformation signature, String informationDisplayString,
+				int callStart, int commas, int activeParameter) {
+			super(signature.getLabel(), informationDisplayString);
+			this.signature = signature;
+			this.callStart = callStart;
+			this.commas = commas;
+			this.activeParameter = activeParameter;
+		}
+
+		/**
+		 * @return the index of the active parameter when the cursor is at the given
+		 *         offset
+		 */
+		int getActiveParameter(@NonNull IDocument document, int offset) {
+			if (callStart < 0) {
+				return activeParameter;
+			}
+			try {
+				return Math.max(0, activeParameter + countCommas(document, callStart, offset) - commas);
+			} catch (BadLocationException e) {
+				return activeParameter;
+			}
+		}
+
+		/**
+		 * @return the range of the given parameter in the label of the signature,
+		 *         or <code>null</code> if it has no such parameter
+		 */
+		@Nullable
+		int[] getParameterRange(int parameter) {
+			List<ParameterInformation> parameters = signature.getParameters();
+			if (parameters == null || parameter < 0 || parameter >= parameters.size()) {
+				return null;
+			}
+			Either<String, Tuple.Two<Integer, Integer>> label = parameters.get(parameter).getLabel();
+			if (label == null) {
+				return null;
+			}
+			if (label.isRight()) {
+				return new int[] { label.getRight().getFirst(), label.getRight().getSecond() };
+			}
+			int start = signature.getLabel().indexOf(label.getLeft());
+			return start < 0 ? null : new int[] { start, start + label.getLeft().length() };
+		}
+	}
+
+	/**
+	 * Keeps the signature information displayed while the cursor stays in its
+	 * call, and shows its active parameter in bold.
+	 */
+	static final class Validator implements IContextInformationValidator, IContextInformationPresenter {
+
+		private final @NonNull IContentAssistProcessor processor;
+		private IContextInformation information;
+		private ITextViewer viewer;
+		private int activeParameter = -1;
+
+		Validator(@NonNull IContentAssistProcessor processor) {
+			this.processor = processor;
+		}
+
+		@Override
+		public void install(IContextInformation info, ITextViewer viewer, int offset) {
+			this.information = info;
+			this.viewer = viewer;
+			this.activeParameter = -1;
+		}
+
+		@Override
+		public boolean isContextInformationValid(int offset) {
+			IContextInformation[] infos = processor.computeContextInformation(viewer, offset);
+			return infos != null && Arrays.asList(infos).contains(information);
+		}
+
+		@Override
+		public boolean updatePresentation(int offset, TextPresentation presentation) {
+			if (!(information instanceof SignatureContextInformation signatureInformation)) {
+				return false;
+			}
+			int parameter = signatureInformation.getActiveParameter(viewer.getDocument(), offset);
+			if (parameter == activeParameter) {
+				return false;
+			}
+			activeParameter = parameter;
+			presentation.clear();
+			int[] range = signatureInformation.getParameterRange(parameter);
+			if (range != null) {
+				presentation.addStyleRange(new StyleRange(range[0], range[1] - range[0], null, null, SWT.BOLD));
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * @return the information of the signatures of the call the cursor is in,
+	 *         from the cache while the cursor stays in the same call
+	 */
+	@NonNull
+	IContextInformation[] computeContextInformation(@NonNull IDocument document, int offset,
+			@NonNull CompletableFuture<List<@NonNull LanguageServer>> languageServers, char[] triggerChars,
+			char[] retriggerChars, long timeout)
+			throws BadLocationException, ExecutionException, InterruptedException, TimeoutException {
+		final int callStart = findCallStart(document, offset);
+		final long modificationStamp = document instanceof IDocumentExtension4 extension
+				? extension.getModificationStamp()
+				: IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		final boolean changed = modificationStamp != lastModificationStamp
+				|| modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		lastModificationStamp = modificationStamp;
+		final char typed = changed && offset > 0 ? document.getChar(offset - 1) : 0;
+
+		final CallSignatureHelp cached = callSignatureHelp;
+		final CallSignatureHelp current = cached != null && cached.document() == document
+				&& cached.callStart() == callStart ? cached : null;
+		if (cached != null && current == null) {
+			// left the call: the same offset may later open a different one
+			setCallSignatureHelp(cached, null);
+		}
+		final boolean sameCall = current != null && callStart >= 0;
+		if (sameCall && !contains(retriggerChars, typed) && !contains(triggerChars, typed)) {
+			return toContextInformation(current);
+		}
+
+		final SignatureHelpParams params = LSPEclipseUtils.toSignatureHelpParams(offset, document);
+		final List<ServerSignatureHelp> helps = languageServers.thenApply(servers -> servers.stream()
+				.map(server -> {
+					SignatureHelpContext context = new SignatureHelpContext();
+					if (typed != 0 && (contains(triggerChars, typed) || (sameCall && contains(retriggerChars, typed)))) {
+						context.setTriggerKind(SignatureHelpTriggerKind.TriggerCharacter);
+						context.setTriggerCharacter(String.valueOf(typed));
+					} else {
+						context.setTriggerKind(SignatureHelpTriggerKind.Invoked);
+					}
+					context.setIsRetrigger(sameCall);
+					if (sameCall) {
+						current.helps().stream().filter(help -> help.server() == server).findFirst()
+								.map(ServerSignatureHelp::signatureHelp).ifPresent(context::setActiveSignatureHelp);
+					}
+					SignatureHelpParams serverParams = new SignatureHelpParams();
+					serverParams.setTextDocument(params.getTextDocument());
+					serverParams.setPosition(params.getPosition());
+					serverParams.setContext(context);
+					return server.getTextDocumentService().signatureHelp(serverParams)
+							.thenApply(help -> new ServerSignatureHelp(server, help));
+				}).collect(Collectors.toList())) //
+				.thenCompose(futures -> CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+						.thenApply(v -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList())))
+				.get(timeout, TimeUnit.MILLISECONDS);
+
+		final CallSignatureHelp result = new CallSignatureHelp(document, callStart,
+				callStart >= 0 ? countCommas(document, callStart, offset) : 0, helps);
+		setCallSignatureHelp(callSignatureHelp, callStart >= 0 ? result : null);
+		return toContextInformation(result);
+	}
+
+	/**
+	 * Replaces the cached answers, unless they were already replaced meanwhile,
+	 * and follows the changes of the document of the new ones
+	 */
+	private synchronized void setCallSignatureHelp(@Nullable CallSignatureHelp expected,
+			@Nullable CallSignatureHelp callHelp) {
+		final CallSignatureHelp current = callSignatureHelp;
+		if (current != expected) {
+			return;
+		}
+		final IDocument oldDocument = current != null ? current.document() : null;
+		final IDocument newDocument = callHelp != null ? callHelp.document() : null;
+		if (oldDocument != newDocument) {
+			if (oldDocument != null) {
+				oldDocument.removeDocumentListener(callChangeListener);
+			}
+			if (newDocument != null) {
+				newDocument.addDocumentListener(callChangeListener);
+			}
+		}
+		callSignatureHelp = callHelp;
+	}
+
+	private static IContextInformation[] toContextInformation(CallSignatureHelp callHelp) {
+		final List<IContextInformation> res = new ArrayList<>();
+		for (ServerSignatureHelp serverHelp : callHelp.helps()) {
+			SignatureHelp help = serverHelp.signatureHelp();
+			if (help == null || help.getSignatures() == null) {
+				continue;
+			}
+			int activeParameter = help.getActiveParameter() != null ? help.getActiveParameter() : 0;
+			for (SignatureInformation signature : help.getSignatures()) {
+				final var informationDisplayString = new StringBuilder(signature.getLabel());
+				String docString = LSPEclipseUtils.getDocString(signature.getDocumentation());
+				if (docString != null && !docString.isEmpty()) {
+					informationDisplayString.append('\n').append(docString);
+				}
+				res.add(new SignatureContextInformation(signature, informationDisplayString.toString(),
+						callHelp.callStart(), callHelp.commas(),
+						signature.getActiveParameter() != null ? signature.getActiveParameter() : activeParameter));
+			}
+		}
+		return res.toArray(new IContextInformation[res.size()]);
+	}
+
+	private static boolean contains(char[] chars, char c) {
+		if (chars == null) {
+			return false;
+		}
+		for (char candidate : chars) {
+			if (candidate == c) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the offset of the opening parenthesis of the innermost call
+	 *         containing the given offset, or -1 if the offset is not in a call
+	 */
+	static int findCallStart(@NonNull IDocument document, int offset) {
+		try {
+			final int scanStart = Math.max(0, offset - MAX_CALL_SCAN);
+			int depth = 0;
+			for (int i = offset - 1; i >= scanStart; i--) {
+				final char c = document.getChar(i);
+				switch (c) {
+				case '"', '\'':
+					if (!isEscaped(document, i, scanStart)) {
+						// brackets in strings don't count, as in countCommas
+						final int stringStart = findStringStart(document, i, c, scanStart);
+						if (stringStart >= 0) {
+							i = stringStart;
+						}
+					}
+					break;
+				case ')', ']', '}':
+					depth++;
+					break;
+				case '(':
+					if (depth == 0) {
+						return i;
+					}
+					depth--;
+					break;
+				case '[', '{':
+					if (depth == 0) {
+						return -1;
+					}
+					depth--;
+					break;
+				case ';':
+					if (depth == 0) {
+						return -1;
+					}
+					break;
+				default:
+					break;
+				}
+			}
+		} catch (BadLocationException e) {
+			LanguageServerPlugin.logError(e);
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the offset of the quote opening the string closed by the quote at
+	 *         the given offset, or -1 if there's none on the same line, e.g. when
+	 *         the given quote opens a string the cursor is in
+	 */
+	private static int findStringStart(@NonNull IDocument document, int end, char quote, int scanStart)
+			throws BadLocationException {
+		for (int i = end - 1; i >= scanStart; i--) {
+			final char c = document.getChar(i);
+			if (c == '\n' || c == '\r') {
+				return -1;
+			}
+			if (c == quote && !isEscaped(document, i, scanStart)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return whether the char at the given offset follows an odd number of
+	 *         backslashes
+	 */
+	private static boolean isEscaped(@NonNull IDocument document, int offset, int scanStart)
+			throws BadLocationException {
+		int backslashes = 0;
+		for (int i = offset - 1; i >= scanStart && document.getChar(i) == '\\'; i--) {
+			backslashes++;
+		}
+		return backslashes % 2 != 0;
+	}
+
+	/**
+	 * @return the number of commas separating the arguments of the call opened at
+	 *         callStart, up to the given offset
+	 */
+	static int countCommas(@NonNull IDocument document, int callStart, int offset) throws BadLocationException {
+		if (offset <= callStart) {
+			return 0;
+		}
+		final String text = document.get(callStart + 1, offset - callStart - 1);
+		int depth = 0;
+		int commas = 0;
+		char quote = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (quote != 0) {
+				if (c == '\\') {
+					i++;
+				} else if (c == quote) {
+					quote = 0;
+				}
+				continue;
+			}
+			switch (c) {
+			case '"', '\'':
+				quote = c;
+				break;
+			case '(', '[', '{':
+				depth++;
+				break;
+			case ')', ']', '}':
+				depth--;
+				break;
+			case ',':
+				if (depth == 0) {
+					commas++;
+				}
+				break;
+			default:
+				break;
+			}
+		}
+		return commas;
+	}
+
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Red Hat Inc. and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.lsp4e.operations.diagnostics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.lsp4j.Diagnostic;
+
+/**
+ * Keeps the full {@link Diagnostic}s last published by a language server for
+ * each resource, so that compact markers only need to store the index of their
+ * diagnostic instead of the whole object graph (related information, code
+ * description, data...).
+ */
+final class DiagnosticStore {
+
+	private static final Map<String, DiagnosticStore> STORES = new ConcurrentHashMap<>();
+
+	private final Map<IPath, List<Diagnostic>> diagnostics = new ConcurrentHashMap<>();
+
+	private DiagnosticStore() {
+	}
+
+	static @NonNull DiagnosticStore forServer(@NonNull String serverId) {
+		return STORES.computeIfAbsent(serverId, id -> new DiagnosticStore());
+	}
+
+	static @Nullable DiagnosticStore getExisting(@Nullable String serverId) {
+		return serverId != null ? STORES.get(serverId) : null;
+	}
+
+	/**
+	 * Replaces the diagnostics of the given resource
+	 */
+	void put(@NonNull IPath resource, @NonNull List<Diagnostic> resourceDiagnostics) {
+		if (resourceDiagnostics.isEmpty()) {
+			diagnostics.remove(resource);
+		} else {
+			diagnostics.put(resource, List.copyOf(resourceDiagnostics));
+		}
+	}
+
+	/**
+	 * @return the diagnostic at the given index in the last diagnostics published
+	 *         for the given resource, or <code>null</code> if there's none
+	 */
+	@Nullable
+	Diagnostic get(@NonNull IPath resource, int index) {
+		final List<Diagnostic> resourceDiagnostics = diagnostics.get(resource);
+		return resourceDiagnostics != null && index >= 0 && index < resourceDiagnostics.size()
+				? resourceDiagnostics.get(index)
+				: null;
+	}
+
+}
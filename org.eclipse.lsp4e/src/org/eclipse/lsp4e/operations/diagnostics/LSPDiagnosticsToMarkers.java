@@ -12,8 +12,12 @@
  *******************************************************************************/
 package org.eclipse.lsp4e.operations.diagnostics;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -24,8 +28,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 
-import org.eclipse.core.filebuffers.FileBuffers;
-import org.eclipse.core.filebuffers.LocationKind;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -36,6 +39,7 @@ import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.source.Annotation;
@@ -45,7 +49,9 @@ import org.eclipse.jface.text.source.ISourceViewer;
 import org.eclipse.lsp4e.IMarkerAttributeComputer;
 import org.eclipse.lsp4e.LSPEclipseUtils;
 import org.eclipse.lsp4e.LanguageServerPlugin;
+import org.eclipse.lsp4e.LineOffsetTable;
 import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.DiagnosticSeverity;
 import org.eclipse.lsp4j.PublishDiagnosticsParams;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.ui.texteditor.MarkerUtilities;
@@ -55,6 +61,12 @@ public class LSPDiagnosticsToMarkers implements Consumer<PublishDiagnosticsParam
 	public static final String LSP_DIAGNOSTIC = "lspDiagnostic"; //$NON-NLS-1$
 	public static final String LANGUAGE_SERVER_ID = "languageServerId"; //$NON-NLS-1$
 	public static final String LS_DIAGNOSTIC_MARKER_TYPE = "org.eclipse.lsp4e.diagnostic"; //$NON-NLS-1$
+	/**
+	 * Index of the diagnostic of a compact marker in the {@link DiagnosticStore}
+	 * of its language server, stored instead of {@link #LSP_DIAGNOSTIC}
+	 */
+	private static final String LSP_DIAGNOSTIC_HANDLE = "lspDiagnosticHandle"; //$NON-NLS-1$
+	private static final String COMPACT_MARKERS__KEY = "diagnostics.compactMarkers"; //$NON-NLS-1$
 	private final @NonNull String languageServerId;
 	private final @NonNull String markerType;
 	private final Optional<IMarkerAttributeComputer> markerAttributeComputer;
@@ -81,6 +93,61 @@ public class LSPDiagnosticsToMarkers implements Consumer<PublishDiagnosticsParam
 		this(serverId);
 	}
 
+	/**
+	 * Converts a language server ID to the preference ID to enable compact
+	 * markers, which don't hold the whole LSP {@link Diagnostic} but only a handle
+	 * to retrieve it with {@link #getDiagnostic(IMarker)}
+	 *
+	 * @return language server's preference ID to enable compact markers
+	 */
+	static @NonNull String lsToCompactMarkersKey(@NonNull String serverId) {
+		return serverId + '.' + COMPACT_MARKERS__KEY;
+	}
+
+	/**
+	 * Returns the LSP diagnostic a marker was created for. For compact markers, it
+	 * is rebuilt from the marker attributes if the language server published other
+	 * diagnostics for the resource in the meantime.
+	 *
+	 * @return the diagnostic of the given marker, or <code>null</code> if it's not
+	 *         a marker created from an LSP diagnostic
+	 */
+	public static @Nullable Diagnostic getDiagnostic(@NonNull IMarker marker) throws CoreException {
+		Object[] attributes = marker.getAttributes(new String[] { LSP_DIAGNOSTIC, LSP_DIAGNOSTIC_HANDLE,
+				LANGUAGE_SERVER_ID, IMarker.MESSAGE, IMarker.SEVERITY, IMarker.LINE_NUMBER });
+		if (attributes[0] instanceof Diagnostic diagnostic) {
+			return diagnostic;
+		}
+		if (!(attributes[1] instanceof Integer handle) || !(attributes[3] instanceof String message)) {
+			return null;
+		}
+		DiagnosticStore store = DiagnosticStore.getExisting((String) attributes[2]);
+		Diagnostic diagnostic = store != null ? store.get(marker.getResource().getFullPath(), handle) : null;
+		if (diagnostic != null && message.equals(diagnostic.getMessage())) {
+			return diagnostic;
+		}
+		int line = attributes[5] instanceof Integer lineNumber ? Math.max(0, lineNumber - 1) : 0;
+		diagnostic = new Diagnostic(
+				new Range(new org.eclipse.lsp4j.Position(line, 0), new org.eclipse.lsp4j.Position(line + 1, 0)),
+				message);
+		diagnostic.setSeverity(toDiagnosticSeverity(attributes[4]));
+		return diagnostic;
+	}
+
+	private static @Nullable DiagnosticSeverity toDiagnosticSeverity(@Nullable Object markerSeverity) {
+		if (markerSeverity instanceof Integer severity) {
+			switch (severity) {
+			case IMarker.SEVERITY_ERROR:
+				return DiagnosticSeverity.Error;
+			case IMarker.SEVERITY_WARNING:
+				return DiagnosticSeverity.Warning;
+			default:
+				return DiagnosticSeverity.Information;
+			}
+		}
+		return null;
+	}
+
 	@Override
 	public void accept(PublishDiagnosticsParams diagnostics) {
 		try {
@@ -115,16 +182,19 @@ public class LSPDiagnosticsToMarkers implements Consumer<PublishDiagnosticsParam
 					toRemove.add(annotation);
 				}
 			});
-			Map<Annotation, Position> toAdd = new HashMap<>(diagnostics.getDiagnostics().size(), 1.f);
-			diagnostics.getDiagnostics().forEach(diagnostic -> {
-				try {
-					int startOffset = LSPEclipseUtils.toOffset(diagnostic.getRange().getStart(), sourceViewer.getDocument());
-					int endOffset = LSPEclipseUtils.toOffset(diagnostic.getRange().getEnd(), sourceViewer.getDocument());
-					toAdd.put(new DiagnosticAnnotation(diagnostic), new Position(startOffset, endOffset - startOffset));
-				} catch (BadLocationException ex) {
-					LanguageServerPlugin.logError(ex);
+			List<Diagnostic> diagnosticList = diagnostics.getDiagnostics();
+			Map<Annotation, Position> toAdd = new HashMap<>(diagnosticList.size(), 1.f);
+			int[] offsets = new int[2 * diagnosticList.size()];
+			LineOffsetTable.of(sourceViewer.getDocument()).toOffsets(diagnosticList, Diagnostic::getRange, offsets);
+			for (int i = 0; i < diagnosticList.size(); i++) {
+				int startOffset = offsets[2 * i];
+				int endOffset = offsets[2 * i + 1];
+				if (startOffset < 0) {
+					LanguageServerPlugin.logError(new BadLocationException(diagnosticList.get(i).getRange().toString()));
+					continue;
 				}
-			});
+				toAdd.put(new DiagnosticAnnotation(diagnosticList.get(i)), new Position(startOffset, endOffset - startOffset));
+			}
 			annotationModelExtension.replaceAnnotations(toRemove.toArray(new Annotation[toRemove.size()]), toAdd);
 		}
 	}
@@ -134,31 +204,57 @@ public class LSPDiagnosticsToMarkers implements Consumer<PublishDiagnosticsParam
 				Arrays.asList(resource.findMarkers(markerType, false, IResource.DEPTH_ONE)));
 		toDeleteMarkers
 				.removeIf(marker -> !Objects.equals(marker.getAttribute(LANGUAGE_SERVER_ID, ""), languageServerId)); //$NON-NLS-1$
-		List<Diagnostic> newDiagnostics = new ArrayList<>();
-		Map<IMarker, Diagnostic> toUpdate = new HashMap<>();
+		List<Integer> newDiagnostics = new ArrayList<>();
+		Map<IMarker, Integer> toUpdate = new HashMap<>();
 
 		// A language server can scan the whole project and generate diagnostics for files that are not currently open in the IDE
-		// (the markers will show up in the problem view). If so, need to open the document temporarily but be sure to release it
-		// when we're done
-		final boolean disconnect = !diagnostics.getDiagnostics().isEmpty() && LSPEclipseUtils.getExistingDocument(resource) == null;
-		IDocument document = diagnostics.getDiagnostics().isEmpty() ? null : LSPEclipseUtils.getDocument(resource);
-		for (Diagnostic diagnostic : diagnostics.getDiagnostics()) {
-			IMarker associatedMarker = getExistingMarkerFor(document, diagnostic, toDeleteMarkers);
-			if (associatedMarker == null) {
-				newDiagnostics.add(diagnostic);
-			} else {
-				toDeleteMarkers.remove(associatedMarker);
-				toUpdate.put(associatedMarker, diagnostic);
+		// (the markers will show up in the problem view). If so, the marker positions are computed straight from the file
+		// content, without opening a document; marker attribute computers get a lightweight copy of the content
+		List<Diagnostic> diagnosticList = diagnostics.getDiagnostics();
+		final DiagnosticStore store = LanguageServerPlugin.getDefault().getPreferenceStore()
+				.getBoolean(lsToCompactMarkersKey(languageServerId)) ? DiagnosticStore.forServer(languageServerId)
+						: null;
+		if (store != null) {
+			store.put(resource.getFullPath(), diagnosticList);
+		}
+		IDocument existingDocument = diagnosticList.isEmpty() ? null : LSPEclipseUtils.getExistingDocument(resource);
+		IDocument document = existingDocument == null && !diagnosticList.isEmpty() && markerAttributeComputer.isPresent()
+				? readDocument(resource)
+				: existingDocument;
+		LineOffsetTable lineOffsets = document != null ? LineOffsetTable.of(document)
+				: getFileLineOffsets(diagnosticList, resource);
+		if (lineOffsets == null || toDeleteMarkers.isEmpty()) {
+			for (int i = 0; i < diagnosticList.size(); i++) {
+				newDiagnostics.add(i);
+			}
+		} else {
+			Map<MarkerKey, Deque<IMarker>> existingMarkers = indexMarkers(toDeleteMarkers);
+			int[] offsets = new int[2 * diagnosticList.size()];
+			lineOffsets.toOffsets(diagnosticList, Diagnostic::getRange, offsets);
+			for (int i = 0; i < diagnosticList.size(); i++) {
+				Diagnostic diagnostic = diagnosticList.get(i);
+				Deque<IMarker> candidates = offsets[2 * i] < 0 ? null
+						: existingMarkers.get(new MarkerKey(offsets[2 * i], offsets[2 * i + 1], diagnostic.getMessage()));
+				IMarker associatedMarker = candidates != null ? candidates.poll() : null;
+				if (associatedMarker == null) {
+					newDiagnostics.add(i);
+				} else {
+					toDeleteMarkers.remove(associatedMarker);
+					toUpdate.put(associatedMarker, i);
+				}
 			}
 		}
 		IWorkspaceRunnable runnable = monitor -> {
 			try {
-				for (Diagnostic diagnostic : newDiagnostics) {
-					Map<String, Object> markerAttributes = computeMarkerAttributes(document, diagnostic, resource);
+				for (int index : newDiagnostics) {
+					Map<String, Object> markerAttributes = computeMarkerAttributes(document, lineOffsets,
+							diagnosticList.get(index), store != null ? index : -1, resource);
 					resource.createMarker(markerType, markerAttributes);
 				}
-				for (Entry<IMarker, Diagnostic> entry : toUpdate.entrySet()) {
-					Map<String, Object> markerAttributes = computeMarkerAttributes(document, entry.getValue(), resource);
+				for (Entry<IMarker, Integer> entry : toUpdate.entrySet()) {
+					int index = entry.getValue();
+					Map<String, Object> markerAttributes = computeMarkerAttributes(document, lineOffsets,
+							diagnosticList.get(index), store != null ? index : -1, resource);
 					updateMarker(markerAttributes, entry.getKey());
 				}
 				toDeleteMarkers.forEach(t -> {
@@ -172,20 +268,48 @@ public class LSPDiagnosticsToMarkers implements Consumer<PublishDiagnosticsParam
 				if (resource.isAccessible()) {
 					LanguageServerPlugin.logError(e);
 				}
-			} finally {
-				if (document != null && disconnect) {
-					try {
-						FileBuffers.getTextFileBufferManager().disconnect(resource.getFullPath(), LocationKind.IFILE, new NullProgressMonitor());
-					} catch (CoreException e) {
-						LanguageServerPlugin.logError(e);
-					}
-				}
 			}
 		};
 		IWorkspace ws = resource.getWorkspace();
 		ws.run(runnable, ws.getRuleFactory().markerRule(resource), IWorkspace.AVOID_UPDATE, new NullProgressMonitor());
 	}
 
+	/**
+	 * @return a document holding the current content of the given file, not
+	 *         connected to the file buffers, or <code>null</code> if it's not a
+	 *         readable file
+	 */
+	private static @Nullable IDocument readDocument(IResource resource) {
+		if (!(resource instanceof IFile file)) {
+			return null;
+		}
+		try (InputStream contents = file.getContents(true)) {
+			String text = new String(contents.readAllBytes(), file.getCharset());
+			// byte order mark isn't part of the document
+			return new Document(text.startsWith("\uFEFF") ? text.substring(1) : text); //$NON-NLS-1$
+		} catch (IOException | CoreException e) {
+			LanguageServerPlugin.logError(e);
+			return null;
+		}
+	}
+
+	/**
+	 * @return the line offsets of the content of the given file, read without
+	 *         opening a document, or <code>null</code> if there's no diagnostic to
+	 *         place in it
+	 */
+	private static @Nullable LineOffsetTable getFileLineOffsets(List<Diagnostic> diagnostics, IResource resource) {
+		if (diagnostics.isEmpty() || !(resource instanceof IFile file)) {
+			return null;
+		}
+		try {
+			return LineOffsetTable.of(file);
+		} catch (CoreException e) {
+			LanguageServerPlugin.logError(e);
+			return null;
+		}
+	}
+
 	protected void updateMarker(@NonNull Map<String, Object> targetAttributes, @NonNull IMarker marker) {
 		try {
 			if (!targetAttributes.equals(marker.getAttributes())) {
@@ -196,44 +320,59 @@ public class LSPDiagnosticsToMarkers implements Consumer<PublishDiagnosticsParam
 		}
 	}
 
-	private IMarker getExistingMarkerFor(IDocument document, Diagnostic diagnostic, Set<IMarker> remainingMarkers) {
-		if (document == null) {
-			return null;
-		}
+	/**
+	 * Identifies the markers a new diagnostic can reuse
+	 */
+	private record MarkerKey(int charStart, int charEnd, @Nullable Object message) {
+	}
 
-		for (IMarker marker : remainingMarkers) {
+	/**
+	 * Indexes the given markers (all from this language server) by position and
+	 * message, so that new diagnostics are matched against them in linear time.
+	 */
+	private static Map<MarkerKey, Deque<IMarker>> indexMarkers(Set<IMarker> markers) {
+		Map<MarkerKey, Deque<IMarker>> index = new HashMap<>(markers.size(), 1.f);
+		for (IMarker marker : markers) {
 			try {
-				if (LSPEclipseUtils.toOffset(diagnostic.getRange().getStart(), document) == MarkerUtilities.getCharStart(marker)
-						&& LSPEclipseUtils.toOffset(diagnostic.getRange().getEnd(), document) == MarkerUtilities.getCharEnd(marker)
-						&& Objects.equals(marker.getAttribute(IMarker.MESSAGE), diagnostic.getMessage())
-						&& Objects.equals(marker.getAttribute(LANGUAGE_SERVER_ID), this.languageServerId)) {
-					return marker;
-				}
-			} catch (CoreException | BadLocationException e) {
+				index.computeIfAbsent(new MarkerKey(MarkerUtilities.getCharStart(marker),
+						MarkerUtilities.getCharEnd(marker), marker.getAttribute(IMarker.MESSAGE)),
+						key -> new ArrayDeque<>(1)).add(marker);
+			} catch (CoreException e) {
 				LanguageServerPlugin.logError(e);
 			}
 		}
-		return null;
+		return index;
 	}
 
+	/**
+	 * @param handle
+	 *            the index of the diagnostic in the {@link DiagnosticStore} to
+	 *            create a compact marker, or -1 to store the whole diagnostic in
+	 *            the marker
+	 */
 	private @NonNull Map<String, Object> computeMarkerAttributes(@Nullable IDocument document,
-			@NonNull Diagnostic diagnostic, @NonNull IResource resource) {
+			@Nullable LineOffsetTable lineOffsets, @NonNull Diagnostic diagnostic, int handle,
+			@NonNull IResource resource) {
 		Map<String, Object> attributes = new HashMap<>(8);
-		attributes.put(LSP_DIAGNOSTIC, diagnostic);
+		if (handle < 0) {
+			attributes.put(LSP_DIAGNOSTIC, diagnostic);
+		} else {
+			attributes.put(LSP_DIAGNOSTIC_HANDLE, handle);
+		}
 		attributes.put(LANGUAGE_SERVER_ID, languageServerId);
 		attributes.put(IMarker.MESSAGE, diagnostic.getMessage());
 		attributes.put(IMarker.SEVERITY, LSPEclipseUtils.toEclipseMarkerSeverity(diagnostic.getSeverity()));
 
-		if (document != null) {
+		if (lineOffsets != null) {
 			Range range = diagnostic.getRange();
-			int documentLength = document.getLength();
+			int documentLength = lineOffsets.getLength();
 			try {
-				int start = Math.min(LSPEclipseUtils.toOffset(range.getStart(), document), documentLength);
-				int end = Math.min(LSPEclipseUtils.toOffset(range.getEnd(), document), documentLength);
-				int lineOfStartOffset = document.getLineOfOffset(start);
+				int start = Math.min(lineOffsets.toOffset(range.getStart()), documentLength);
+				int end = Math.min(lineOffsets.toOffset(range.getEnd()), documentLength);
+				int lineOfStartOffset = lineOffsets.getLineOfOffset(start);
 				if (start == end && documentLength > end) {
 					end++;
-					if (document.getLineOfOffset(end) != lineOfStartOffset) {
+					if (lineOffsets.getLineOfOffset(end) != lineOfStartOffset) {
 						start--;
 						end--;
 					}
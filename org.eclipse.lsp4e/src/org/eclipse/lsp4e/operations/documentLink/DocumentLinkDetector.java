@@ -27,6 +27,7 @@ import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextUtilities;
 import org.eclipse.jface.text.hyperlink.AbstractHyperlinkDetector;
 import org.eclipse.jface.text.hyperlink.IHyperlink;
+import org.eclipse.lsp4e.DocumentResponseCache;
 import org.eclipse.lsp4e.LSPEclipseUtils;
 import org.eclipse.lsp4e.LanguageServerPlugin;
 import org.eclipse.lsp4e.LanguageServiceAccessor;
@@ -86,7 +87,9 @@ public class DocumentLinkDetector extends AbstractHyperlinkDetector {
 							capabilities -> capabilities.getDocumentLinkProvider() != null)
 					.thenApplyAsync(languageServers -> {
 						IHyperlink[] res = languageServers.stream()
-								.map(languageServer -> languageServer.getTextDocumentService().documentLink(params))
+								.map(languageServer -> DocumentResponseCache.getOrRequest(languageServer, uri,
+										DocumentResponseCache.DOCUMENT_LINK, params,
+										ls -> ls.getTextDocumentService().documentLink(params)))
 								.map(future -> {
 									try {
 										return future.get(2, TimeUnit.SECONDS);
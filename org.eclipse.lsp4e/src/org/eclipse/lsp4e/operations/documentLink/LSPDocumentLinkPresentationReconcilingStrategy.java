@@ -23,6 +23,7 @@ import org.eclipse.jface.text.TextPresentation;
 import org.eclipse.jface.text.reconciler.DirtyRegion;
 import org.eclipse.jface.text.reconciler.IReconcilingStrategy;
 import org.eclipse.jface.text.reconciler.IReconcilingStrategyExtension;
+import org.eclipse.lsp4e.DocumentResponseCache;
 import org.eclipse.lsp4e.LSPEclipseUtils;
 import org.eclipse.lsp4e.LanguageServerPlugin;
 import org.eclipse.lsp4e.LanguageServiceAccessor;
@@ -76,7 +77,9 @@ public class LSPDocumentLinkPresentationReconcilingStrategy
 		request = LanguageServiceAccessor
 				.getLanguageServers(document, capabilities -> capabilities.getDocumentLinkProvider() != null)
 				.thenAcceptAsync(languageServers -> CompletableFuture.allOf(languageServers.stream()
-						.map(languageServer -> languageServer.getTextDocumentService().documentLink(params))
+						.map(languageServer -> DocumentResponseCache.getOrRequest(languageServer, uri,
+								DocumentResponseCache.DOCUMENT_LINK, params,
+								ls -> ls.getTextDocumentService().documentLink(params)))
 						.map(request -> request.thenAcceptAsync(links -> {
 							final Control control = viewer.getTextWidget();
 							if (control != null) {
@@ -32,6 +32,7 @@ import org.eclipse.jface.text.source.projection.IProjectionListener;
 import org.eclipse.jface.text.source.projection.ProjectionAnnotation;
 import org.eclipse.jface.text.source.projection.ProjectionAnnotationModel;
 import org.eclipse.jface.text.source.projection.ProjectionViewer;
+import org.eclipse.lsp4e.DocumentResponseCache;
 import org.eclipse.lsp4e.LSPEclipseUtils;
 import org.eclipse.lsp4e.LanguageServiceAccessor;
 import org.eclipse.lsp4j.FoldingRange;
@@ -128,7 +129,8 @@ public class LSPFoldingReconcilingStrategy
 				return;
 			}
 			servers.stream().forEach(server -> {
-				server.getTextDocumentService().foldingRange(params).thenAcceptAsync(this::applyFolding);
+				DocumentResponseCache.getOrRequest(server, uri, DocumentResponseCache.FOLDING_RANGE, params,
+						ls -> ls.getTextDocumentService().foldingRange(params)).thenAcceptAsync(this::applyFolding);
 			});
 		});
 	}
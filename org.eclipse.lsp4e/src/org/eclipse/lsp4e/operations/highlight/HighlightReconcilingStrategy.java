@@ -45,9 +45,11 @@ import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.ISelectionProvider;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
+import org.eclipse.lsp4e.CancellationSupport;
 import org.eclipse.lsp4e.LSPEclipseUtils;
 import org.eclipse.lsp4e.LanguageServerPlugin;
 import org.eclipse.lsp4e.LanguageServiceAccessor;
+import org.eclipse.lsp4e.LineOffsetTable;
 import org.eclipse.lsp4j.DocumentHighlight;
 import org.eclipse.lsp4j.DocumentHighlightKind;
 import org.eclipse.lsp4j.DocumentHighlightParams;
@@ -194,16 +196,18 @@ public class HighlightReconcilingStrategy
 		}
 		TextDocumentIdentifier identifier = new TextDocumentIdentifier(uri.toString());
 		DocumentHighlightParams params = new DocumentHighlightParams(identifier, position);
-		request = LanguageServiceAccessor.getLanguageServers(document,
+		final var cancellationSupport = new CancellationSupport(monitor);
+		request = cancellationSupport.bind(LanguageServiceAccessor.getLanguageServers(document,
 				capabilities -> LSPEclipseUtils.hasCapability(capabilities.getDocumentHighlightProvider()))
-				.thenAcceptAsync(languageServers ->
+				.thenComposeAsync(languageServers ->
 				CompletableFuture.allOf(languageServers.stream()
-						.map(languageServer -> languageServer.getTextDocumentService().documentHighlight(params))
+						.map(languageServer -> cancellationSupport
+								.execute(languageServer.getTextDocumentService().documentHighlight(params)))
 						.map(request -> request.thenAcceptAsync(result -> {
-							if (!monitor.isCanceled()) {
+							if (!cancellationSupport.isCanceled()) {
 								updateAnnotations(result, sourceViewer.getAnnotationModel());
 							}
-						})).toArray(CompletableFuture[]::new)));
+						})).toArray(CompletableFuture[]::new))));
 	}
 
 	/**
@@ -226,16 +230,19 @@ public class HighlightReconcilingStrategy
 	 */
 	private void updateAnnotations(List<? extends DocumentHighlight> highlights, IAnnotationModel annotationModel) {
 		Map<Annotation, org.eclipse.jface.text.Position> annotationMap = new HashMap<>(highlights.size());
-		for (DocumentHighlight h : highlights) {
+		int[] offsets = new int[2 * highlights.size()];
+		LineOffsetTable.of(document).toOffsets(highlights, h -> h != null ? h.getRange() : null, offsets);
+		for (int i = 0; i < highlights.size(); i++) {
+			DocumentHighlight h = highlights.get(i);
 			if (h != null) {
-				try {
-					int start = LSPEclipseUtils.toOffset(h.getRange().getStart(), document);
-					int end = LSPEclipseUtils.toOffset(h.getRange().getEnd(), document);
-					annotationMap.put(new Annotation(kindToAnnotationType(h.getKind()), false, null),
-							new org.eclipse.jface.text.Position(start, end - start));
-				} catch (BadLocationException e) {
-					LanguageServerPlugin.logError(e);
+				int start = offsets[2 * i];
+				int end = offsets[2 * i + 1];
+				if (start < 0) {
+					LanguageServerPlugin.logError(new BadLocationException(String.valueOf(h.getRange())));
+					continue;
 				}
+				annotationMap.put(new Annotation(kindToAnnotationType(h.getKind()), false, null),
+						new org.eclipse.jface.text.Position(start, end - start));
 			}
 		}
 
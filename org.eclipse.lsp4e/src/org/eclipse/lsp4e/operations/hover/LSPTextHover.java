@@ -12,11 +12,17 @@
  *  Angelo Zerr <angelo.zerr@gmail.com> - Bug 525602 - LSBasedHover must check if LS have codelens capability
  *  Lucas Bullen (Red Hat Inc.) - [Bug 517428] Requests sent before initialization
  *  Alex Boyko (VMware) - [Bug 566164] fix for NPE in LSPTextHover
+ *  Red Hat Inc. - query servers in parallel and cache rendered HTML
  *******************************************************************************/
 package org.eclipse.lsp4e.operations.hover;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -38,10 +44,12 @@ import org.eclipse.jface.text.ITextHover;
 import org.eclipse.jface.text.ITextHoverExtension;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.Region;
+import org.eclipse.lsp4e.CancellationSupport;
 import org.eclipse.lsp4e.LSPEclipseUtils;
 import org.eclipse.lsp4e.LanguageServerPlugin;
 import org.eclipse.lsp4e.LanguageServiceAccessor;
 import org.eclipse.lsp4j.Hover;
+import org.eclipse.lsp4j.HoverParams;
 import org.eclipse.lsp4j.MarkedString;
 import org.eclipse.lsp4j.MarkupContent;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
@@ -58,9 +66,30 @@ public class LSPTextHover implements ITextHover, ITextHoverExtension {
 
 	private static final MarkupParser MARKDOWN_PARSER = new MarkupParser(new MarkdownLanguage(true));
 
+	/**
+	 * Number of rendered hovers kept, the same symbols are usually hovered
+	 * several times
+	 */
+	private static final int HTML_CACHE_SIZE = 64;
+	private static final Map<String, String> HTML_CACHE = Collections
+			.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Entry<String, String> eldest) {
+					return size() > HTML_CACHE_SIZE;
+				}
+			});
+
 	private IRegion lastRegion;
 	private ITextViewer lastViewer;
 	private CompletableFuture<List<Hover>> request;
+	/**
+	 * The hovers of each server for the current request, so that the ones which
+	 * already arrived can be shown when the slowest servers time out
+	 */
+	private volatile List<CompletableFuture<Hover>> serverRequests = Collections.emptyList();
+	private CancellationSupport cancellationSupport;
 
 	@Override
 	public String getHoverInfo(ITextViewer textViewer, IRegion hoverRegion) {
@@ -81,6 +110,10 @@ public class LSPTextHover implements ITextHover, ITextHoverExtension {
 				Thread.currentThread().interrupt();
 			} catch (TimeoutException e) {
 				LanguageServerPlugin.logWarning("Could not get hover information due to timeout after 500 miliseconds", e); //$NON-NLS-1$
+				return toHtml(serverRequests.stream() //
+						.filter(hover -> hover.isDone() && !hover.isCompletedExceptionally()) //
+						.map(hover -> hover.getNow(null)) //
+						.collect(Collectors.toList()));
 			}
 		}
 		return null;
@@ -90,19 +123,30 @@ public class LSPTextHover implements ITextHover, ITextHoverExtension {
 		if (this.request == null || !textViewer.equals(this.lastViewer) || !hoverRegion.equals(this.lastRegion)) {
 			initiateHoverRequest(textViewer, hoverRegion.getOffset());
 		}
-		return request.thenApply(hoversList -> {
-			String result = hoversList.stream()
-				.filter(Objects::nonNull)
-				.map(LSPTextHover::getHoverString)
-				.filter(Objects::nonNull)
-				.collect(Collectors.joining("\n\n")) //$NON-NLS-1$
-				.trim();
-			if (!result.isEmpty()) {
-				return MARKDOWN_PARSER.parseToHtml(result);
-			} else {
-				return null;
+		return request.thenApply(LSPTextHover::toHtml);
+	}
+
+	private static @Nullable String toHtml(@NonNull List<Hover> hovers) {
+		String result = hovers.stream()
+			.filter(Objects::nonNull)
+			.map(LSPTextHover::getHoverString)
+			.filter(Objects::nonNull)
+			.collect(Collectors.joining("\n\n")) //$NON-NLS-1$
+			.trim();
+		if (!result.isEmpty()) {
+			String html = HTML_CACHE.get(result);
+			if (html == null) {
+				// rendered outside of the lock of the cache, which is shared by all the hovers
+				html = MARKDOWN_PARSER.parseToHtml(result);
+				String cached = HTML_CACHE.putIfAbsent(result, html);
+				if (cached != null) {
+					html = cached;
+				}
 			}
-		});
+			return html;
+		} else {
+			return null;
+		}
 	}
 
 	protected static @Nullable String getHoverString(@NonNull Hover hover) {
@@ -192,24 +236,46 @@ public class LSPTextHover implements ITextHover, ITextHoverExtension {
 	private void initiateHoverRequest(@NonNull ITextViewer viewer, int offset) {
 		final IDocument document = viewer.getDocument();
 		this.lastViewer = viewer;
-		this.request = LanguageServiceAccessor
+		if (this.cancellationSupport != null) {
+			// the previous hover is stale
+			this.cancellationSupport.cancel();
+		}
+		final var cancellationSupport = new CancellationSupport();
+		this.cancellationSupport = cancellationSupport;
+		this.serverRequests = Collections.emptyList();
+		this.request = cancellationSupport.bind(LanguageServiceAccessor
 			.getLanguageServers(document, capabilities -> LSPEclipseUtils.hasCapability(capabilities.getHoverProvider()))
-				.thenApplyAsync(languageServers -> // Async is very important here, otherwise the LS Client thread is in
+				.thenComposeAsync(languageServers -> { // Async is very important here, otherwise the LS Client thread is in
 													// deadlock and doesn't read bytes from LS
-				languageServers.stream()
-					.map(languageServer -> {
-						try {
-								return languageServer.getTextDocumentService()
-										.hover(LSPEclipseUtils.toHoverParams(offset, document)).get();
-						} catch (ExecutionException | BadLocationException e) {
-							LanguageServerPlugin.logError(e);
-							return null;
-						} catch (InterruptedException e) {
-							LanguageServerPlugin.logError(e);
-							Thread.currentThread().interrupt();
-							return null;
-						}
-					}).filter(Objects::nonNull).collect(Collectors.toList()));
+					final HoverParams params;
+					try {
+						params = LSPEclipseUtils.toHoverParams(offset, document);
+					} catch (BadLocationException e) {
+						LanguageServerPlugin.logError(e);
+						return CompletableFuture.completedFuture(Collections.emptyList());
+					}
+					// all servers are queried at once, the hover is as slow as the slowest one
+					List<CompletableFuture<Hover>> hovers = languageServers.stream()
+						.map(languageServer -> cancellationSupport
+								.execute(languageServer.getTextDocumentService().hover(params))
+								.exceptionally(e -> {
+									if (!(e instanceof CancellationException
+											|| e.getCause() instanceof CancellationException)) {
+										// otherwise a more recent hover request superseded this one
+										LanguageServerPlugin.logError(e);
+									}
+									return null;
+								}))
+						.collect(Collectors.toList());
+					if (this.cancellationSupport == cancellationSupport) {
+						this.serverRequests = hovers;
+					}
+					return CompletableFuture.allOf(hovers.toArray(CompletableFuture[]::new))
+							.thenApply(v -> hovers.stream()
+								.map(CompletableFuture::join)
+								.filter(Objects::nonNull)
+								.collect(Collectors.toList()));
+				}));
 	}
 
 	@Override
@@ -18,6 +18,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.core.resources.IFile;
@@ -45,6 +46,8 @@ import org.eclipse.jface.viewers.TreePath;
 import org.eclipse.jface.viewers.TreeSelection;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.lsp4e.CancellationSupport;
+import org.eclipse.lsp4e.DocumentResponseCache;
 import org.eclipse.lsp4e.LSPEclipseUtils;
 import org.eclipse.lsp4e.LanguageServerPlugin;
 import org.eclipse.lsp4e.ui.UI;
@@ -212,6 +215,7 @@ public class LSSymbolsContentProvider implements ICommonContentProvider, ITreeCo
 
 	private final SymbolsModel symbolsModel = new SymbolsModel();
 	private volatile CompletableFuture<List<Either<SymbolInformation, DocumentSymbol>>> symbols;
+	private CancellationSupport cancellationSupport;
 	private final boolean refreshOnResourceChanged;
 	private boolean isQuickOutline;
 	private IOutlineUpdater outlineUpdater;
@@ -299,12 +303,19 @@ public class LSSymbolsContentProvider implements ICommonContentProvider, ITreeCo
 			return;
 		}
 
-		if (symbols != null) {
-			symbols.cancel(true);
+		if (cancellationSupport != null) {
+			// the previous symbols are stale
+			cancellationSupport.cancel();
 		}
+		final var cancellationSupport = new CancellationSupport();
+		this.cancellationSupport = cancellationSupport;
 
 		DocumentSymbolParams params = new DocumentSymbolParams(new TextDocumentIdentifier(documentURI.toString()));
-		symbols = outlineViewerInput.languageServer.getTextDocumentService().documentSymbol(params);
+		// the response may be shared with other consumers, so only this consumer's future is
+		// cancelled, the cache cancels the request once none of its consumers is left
+		symbols = cancellationSupport.execute(DocumentResponseCache.getOrRequest(outlineViewerInput.languageServer,
+				documentURI, DocumentResponseCache.DOCUMENT_SYMBOL, params,
+				languageServer -> languageServer.getTextDocumentService().documentSymbol(params)));
 		symbols.thenAcceptAsync(response -> {
 			symbolsModel.update(response);
 			lastError = null;
@@ -340,6 +351,10 @@ public class LSSymbolsContentProvider implements ICommonContentProvider, ITreeCo
 		});
 
 		symbols.exceptionally(ex -> {
+			if (ex instanceof CancellationException) {
+				// superseded by a more recent request, or the outline is disposed
+				return Collections.emptyList();
+			}
 			lastError = ex;
 			viewer.getControl().getDisplay().asyncExec(viewer::refresh);
 			return Collections.emptyList();
@@ -351,6 +366,9 @@ public class LSSymbolsContentProvider implements ICommonContentProvider, ITreeCo
 		if (outlineUpdater != null) {
 			outlineUpdater.uninstall();
 		}
+		if (cancellationSupport != null) {
+			cancellationSupport.cancel();
+		}
 	}
 
 	@Override
@@ -66,6 +66,8 @@ public class Messages extends NLS {
 	public static String rename_empty_message;
 	public static String rename_invalidated;
 	public static String completionError;
+	public static String completionComputing;
+	public static String completionComputingServers;
 	public static String linkWithEditor_label;
 	public static String linkWithEditor_description;
 	public static String linkWithEditor_tooltip;